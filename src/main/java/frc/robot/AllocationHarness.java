@@ -0,0 +1,97 @@
+package frc.robot;
+
+import java.io.File;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/**
+ * Runs the robot loop in simulation through an autonomous and a teleop scenario and checks the
+ * bytes each hot path allocates per cycle against its budget in AllocationConstants, see
+ * {@link AllocationMeter}. Exits with 1 if any path is over budget, which fails the build.
+ *
+ * The scenario runs twice and only the second pass counts, so class loading, JIT and objects
+ * created on first use do not show up as per-cycle garbage.
+ *
+ * Run with ./gradlew allocationBudget (part of ./gradlew check)
+ */
+public final class AllocationHarness {
+    static final int AUTO_CYCLES = 15 * 50;
+    static final int COMMAND_CYCLES = 4 * 50;
+
+    /** The robot driven one loop at a time instead of by the TimedRobot notifier. */
+    private static final class HarnessRobot extends Robot {
+        void step() {
+            loopFunc();
+        }
+    }
+
+    private final HarnessRobot robot = new HarnessRobot();
+    private final AllocationMeter meter = AllocationMeter.getInstance();
+
+    private AllocationHarness() {
+    }
+
+    private void run(int cycles) {
+        for (int i = 0; i < cycles; ++i) {
+            SimHooks.stepTiming(Constants.TimePeriod);
+            meter.startCycle();
+            robot.step();
+            meter.endCycle();
+        }
+    }
+
+    private void mode(boolean enabled, boolean autonomous) {
+        DriverStationSim.setEnabled(enabled);
+        DriverStationSim.setAutonomous(autonomous);
+        DriverStationSim.notifyNewData();
+    }
+
+    private void runCommand(Command command, int cycles) {
+        command.schedule();
+        run(cycles);
+        command.cancel();
+    }
+
+    private void scenario() {
+        RobotContainer container = robot.getRobotContainer();
+        mode(false, false);
+        run(50);
+
+        mode(true, true);
+        run(1);
+        runCommand(container.m_coralAlgaeAuto, AUTO_CYCLES);
+
+        mode(true, false);
+        run(50);
+        runCommand(container.shootCommandA, COMMAND_CYCLES);
+        runCommand(container.armDownCmd, COMMAND_CYCLES);
+
+        mode(false, false);
+        run(50);
+    }
+
+    public static void main(String... args) {
+        if (!HAL.initialize(500, 0))
+            throw new IllegalStateException("HAL initialization failed");
+        DataLogManager.start(new File(System.getProperty("java.io.tmpdir"), "allocation").getPath());
+        SimHooks.pauseTiming();
+        // Only the match code is measured, not the warm-up of disabled cycles
+        Constants.JitWarmUp = false;
+
+        AllocationHarness harness = new AllocationHarness();
+        harness.robot.robotInit();
+        harness.meter.enable();
+
+        harness.scenario();
+        harness.meter.reset();
+        harness.scenario();
+
+        boolean ok = harness.meter.report();
+        DataLogManager.stop();
+        System.exit(ok ? 0 : 1);
+    }
+}
@@ -0,0 +1,173 @@
+package frc.robot;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.AllocationConstants;
+
+/**
+ * Bytes allocated per cycle by the hot paths of the robot loop, to keep garbage (and with it
+ * GC pauses on the roboRIO's small heap) out of the 20 ms loop.
+ *
+ * Subsystems mark their periodic() work as a {@link HotPath} with a per-cycle budget, leaving
+ * out the IO read, which in simulation runs the physics models. Every
+ * command's execute() is attributed too, through the scheduler's execute callback: the bytes
+ * allocated since the previous mark go to the command that just ran. Counting uses the
+ * allocated bytes of the main thread from com.sun.management.ThreadMXBean.
+ *
+ * The meter is off unless the allocation harness enables it, then begin() and end() only
+ * read one field.
+ */
+public final class AllocationMeter {
+    private static AllocationMeter instance;
+
+    /** One marked section of the loop and its budget. */
+    public final class HotPath {
+        public final String name;
+        public final long budget;  // bytes per cycle
+        private long start;
+        private long cycleBytes = 0;
+        private boolean ran = false;
+        private long totalBytes = 0;
+        private long maxBytes = 0;
+        private int cycles = 0;
+
+        HotPath(String name, long budget) {
+            this.name = name;
+            this.budget = budget;
+        }
+
+        public void begin() {
+            if (!enabled)
+                return;
+            start = allocated();
+            mark = start;
+        }
+
+        public void end() {
+            if (!enabled)
+                return;
+            mark = allocated();
+            cycleBytes += mark - start;
+            ran = true;
+        }
+
+        public double getMean() {
+            return cycles > 0 ? (double) totalBytes / cycles : 0;
+        }
+
+        public boolean isWithinBudget() {
+            return getMean() <= budget;
+        }
+    }
+
+    private final List<HotPath> hotPaths = new ArrayList<>();
+    private final Map<String, HotPath> commands = new HashMap<>();
+    private boolean enabled = false;
+    private com.sun.management.ThreadMXBean threads;
+    private long threadId;
+    private long mark;
+    private int cycles = 0;
+
+    public static synchronized AllocationMeter getInstance() {
+        if (instance == null)
+            instance = new AllocationMeter();
+        return instance;
+    }
+
+    private AllocationMeter() {
+    }
+
+    /** Marks a hot path. Create it once, e.g. as a field, and bracket the work with begin() and end(). */
+    public HotPath hotPath(String name, long budget) {
+        HotPath p = new HotPath(name, budget);
+        hotPaths.add(p);
+        return p;
+    }
+
+    /** Starts counting on the calling thread, which must be the one running the robot loop. */
+    public void enable() {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        threadId = Thread.currentThread().getId();
+        CommandScheduler.getInstance().onCommandExecute(this::commandExecuted);
+        enabled = true;
+    }
+
+    private long allocated() {
+        return threads.getThreadAllocatedBytes(threadId);
+    }
+
+    private void commandExecuted(Command command) {
+        if (!enabled)
+            return;
+        long bytes = allocated() - mark;
+        HotPath p = commands.get(command.getName());
+        if (p == null) {
+            p = new HotPath(command.getName(), AllocationConstants.COMMAND_EXECUTE);
+            commands.put(p.name, p);
+        }
+        p.cycleBytes += bytes;
+        p.ran = true;
+        mark = allocated();
+    }
+
+    /** Call before each loop iteration. */
+    public void startCycle() {
+        if (enabled)
+            mark = allocated();
+    }
+
+    /** Call after each loop iteration, folds this cycle into every path that ran in it. */
+    public void endCycle() {
+        for (HotPath p : hotPaths)
+            endCycle(p);
+        for (HotPath p : commands.values())
+            endCycle(p);
+        ++cycles;
+    }
+
+    private static void endCycle(HotPath p) {
+        if (!p.ran)
+            return;
+        p.totalBytes += p.cycleBytes;
+        p.maxBytes = Math.max(p.maxBytes, p.cycleBytes);
+        ++p.cycles;
+        p.cycleBytes = 0;
+        p.ran = false;
+    }
+
+    /** Forgets everything counted so far, e.g. after a warm-up pass. */
+    public void reset() {
+        List<HotPath> all = new ArrayList<>(hotPaths);
+        all.addAll(commands.values());
+        for (HotPath p : all) {
+            p.totalBytes = p.maxBytes = p.cycleBytes = 0;
+            p.cycles = 0;
+            p.ran = false;
+        }
+        cycles = 0;
+    }
+
+    /** Prints one line per path and returns whether every path stayed within its budget. */
+    public boolean report() {
+        List<HotPath> all = new ArrayList<>(hotPaths);
+        all.addAll(commands.values());
+        boolean ok = true;
+        System.out.printf("ALLOC, %d cycles: path, cycles, mean B/cycle, max B/cycle, budget%n", cycles);
+        for (HotPath p : all) {
+            if (p.cycles == 0)
+                continue;
+            boolean within = p.isWithinBudget();
+            ok &= within;
+            System.out.printf("ALLOC, %s, %d, %.0f, %d, %s%s%n", p.name, p.cycles, p.getMean(), p.maxBytes,
+                p.budget == Long.MAX_VALUE ? "-" : Long.toString(p.budget), within ? "" : ", OVER BUDGET");
+        }
+        return ok;
+    }
+}
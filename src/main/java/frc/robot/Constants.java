@@ -20,6 +20,135 @@ public final class Constants {
   public static int TimePeriodMsec = 20;  // in seconds
   public static double TimePeriod = 0.001 * TimePeriodMsec;  // in milliseconds
   public static boolean ArmUsePulse = true;
+  // Drive both lower shooter motors directly and log them separately instead of
+  // using the hardware follower. Only meant for bench diagnostics.
+  public static boolean ShooterDiagnosticMode = false;
+  // Teleop drives wheel velocities in m/s with the Spark MAX velocity loop instead of open-loop duty cycle
+  public static boolean DriveUseVelocity = false;
+  // Record both controllers during teleop, see DriverInputs
+  public static boolean RecordDriverInputs = false;
+  // Runs the control code while disabled so it is compiled before the match, off to measure without
+  public static boolean JitWarmUp = true;
+
+  public static final class CANConstants {
+    // Spark MAX configs are applied on this many worker threads at startup
+    public static final int CONFIG_THREADS = 4;
+    public static final int CONFIG_RETRIES = 3;
+    // Fingerprints of the last config persisted to each controller, in the operating directory
+    public static final String CONFIG_CACHE_FILE = "spark-config.properties";
+  }
+
+  public static final class ThreadConstants {
+    // Real-time priorities, 1 to 99. Faster loops go higher
+    public static final int MAIN_PRIORITY = 15;
+    public static final int NOTIFIER_PRIORITY = 20;
+    // Tasks each worker may have queued before new ones are dropped
+    public static final int LOGGING_QUEUE = 16;
+    public static final int TELEMETRY_QUEUE = 64;
+    public static final int TUNABLES_QUEUE = 32;
+    // Loop period histogram bin width, and how late an iteration must start to count as late
+    public static final double JITTER_BIN = 0.0001;  // sec
+    public static final double JITTER_LATE = 0.002;  // sec
+  }
+
+  public static final class ScheduleConstants {
+    // Decimated tiers run once every this many cycles: 25 Hz and 5 Hz
+    public static final int NORMAL_PERIOD = 2;
+    public static final int BACKGROUND_PERIOD = 10;
+    // A cycle whose scheduled work took longer than this overran, background work is shed after it
+    public static final double CYCLE_BUDGET = 0.015;  // sec
+  }
+
+  public static final class TelemetryConstants {
+    // Each subsystem publishes one struct topic under this table
+    public static final String TABLE = "/Telemetry";
+    // Signals that only need to be readable by a person go out at 5 Hz at most
+    public static final int SLOW = 10;  // cycles
+  }
+
+  public static final class InputConstants {
+    // Frames kept per recording, one per cycle: 3 minutes
+    public static final int RECORD_CAPACITY = 50 * 180;
+    public static final String EXTENSION = ".inputs";
+    // Recordings in deploy/inputs are offered as autos
+    public static final String DEPLOY_DIRECTORY = "inputs";
+    // Environment variable naming a recording to replay when the simulator starts
+    public static final String REPLAY_ENV = "FRC_INPUT_REPLAY";
+  }
+
+  public static final class StartupConstants {
+    // Set by the class data sharing training boot after deploy, see build.gradle
+    public static final String CDS_TRAINING_PROPERTY = "frc.cds.training";
+    // The training boot exits after this many cycles, once the disabled loop ran a while
+    public static final int CDS_TRAINING_CYCLES = 250;
+  }
+
+  public static final class WarmUpConstants {
+    // Share of each disabled cycle given to the warm-up, the rest of the 20 ms loop stays free
+    public static final double SLICE_TIME = 0.004;  // sec
+    // Warm once the control code ran this often, well past the JIT's C2 thresholds,
+    // and nothing got compiled for this many cycles after
+    public static final long TARGET_ITERATIONS = 20000;
+    public static final int STABLE_CYCLES = 50;
+    // Cycles measured after entering auto or teleop, or starting the first shot
+    public static final int PROBE_CYCLES = 5;
+  }
+
+  public static final class RecorderConstants {
+    // Cycles kept by the flight recorder, 10 s of the 20 ms loop
+    public static final int CAPACITY = 500;
+    // Consecutive overrun cycles that make a snapshot
+    public static final int OVERRUN_STREAK = 5;
+    // At most one snapshot this often, and this many per boot
+    public static final double HOLDOFF = 5.0;  // sec
+    public static final int MAX_SNAPSHOTS = 20;
+  }
+
+  public static final class ThermalConstants {
+    // Lumped model of a NEO, see ThermalModel
+    public static final double NEO_RESISTANCE = 0.114;  // ohm, 12 V at the 105 A stall current
+    public static final double NEO_HEAT_CAPACITY = 250;  // J/C
+    public static final double NEO_THERMAL_RESISTANCE = 1.0;  // C/W to the ambient
+    public static final double AMBIENT = 25;  // C
+    // Heat averaged over this long predicts the time to the limit, reported up to the horizon
+    public static final double POWER_FILTER_TIME = 5;  // sec
+    public static final double HORIZON = 600;  // sec
+  }
+
+  public static final class AllocationConstants {
+    // Steady-state bytes allocated per cycle by each marked hot path, checked by the
+    // allocationBudget task on every build. Lower them as hot paths are cleaned up.
+    public static final long DRIVE_PERIODIC = 4096;  // pose estimator and pose logging
+    public static final long ARM_PERIODIC = 256;
+    public static final long ROLLER_PERIODIC = 256;
+    public static final long SHOOTER_PERIODIC = 256;
+    public static final long CLIMBER_PERIODIC = 256;
+    public static final long POWER_PERIODIC = 256;
+    // Every command's execute(), attributed through the scheduler
+    public static final long COMMAND_EXECUTE = 1024;
+  }
+
+  public static final class PowerConstants {
+    // Keep the battery above this while at peak load, brownout starts at 6.8 V on the roboRIO 2
+    public static final double TARGET_VOLTAGE = 8.0;
+    public static final double BROWNOUT_VOLTAGE = 6.8;
+    // Battery plus wiring internal resistance, in ohms
+    public static final double BATTERY_RESISTANCE = 0.02;
+    public static final int VOLTAGE_FILTER_TAPS = 5;
+
+    // Current limits only change in steps of this many amps, and are raised again no sooner than this
+    public static final int LIMIT_STEP = 5;
+    public static final double LIMIT_HOLD_TIME = 0.5;  // sec
+    public static final double MIN_OUTPUT_SCALE = 0.3;
+
+    // Per-motor minimum limits the budget does not go below while it covers them all, 290 A.
+    // Below that they are scaled down together, to no less than MIN_CURRENT_LIMIT
+    public static final int MIN_CURRENT_LIMIT = 5;
+    public static final int DRIVE_MIN_CURRENT = 40;
+    public static final int ARM_MIN_CURRENT = 20;
+    public static final int SHOOTER_MIN_CURRENT = 20;
+    public static final int ROLLER_MIN_CURRENT = 15;
+  }
 
   public static final class DriveConstants {
     // 1st bot: 1, 2, 3, 4 -- 2nd bot: 18, 19, 10, 11
@@ -29,13 +158,63 @@ public final class Constants {
     public static final int RIGHT_FOLLOWER_ID = 11;
 
     public static final int DRIVE_MOTOR_CURRENT_LIMIT = 60;
+    // Thermal derating, see ThermalMonitor. The drive keeps half its output to get off the field
+    public static final double DERATE_START = 80;  // C
+    public static final double TEMPERATURE_LIMIT = 110;  // C
+    public static final double DERATE_FLOOR = 0.5;
+
     public static final double DRIVE_MOTOR_VOLTAGE_COMP = 12;
     public static final double SPEED_LIMIT = 0.8;
     public static final double SLOW_MODE_MOVE = 0.4;
     public static final double SLOW_MODE_TURN = 0.4;
 
     public static final double AUTO_MODE_SPEED = -0.3;
-    public static final double AUTO_MODE_TIME = 0.6;  //
+    public static final double AUTO_MODE_TIME = 0.6;  // worst case, the auto stops at AUTO_MODE_DISTANCE
+    public static final double AUTO_MODE_DISTANCE = 0.5;  // m
+
+    // Simple coral auto: drive from the start line to the reef, then score
+    public static final double CORAL_AUTO_SPEED = 0.3;
+    public static final double CORAL_AUTO_DISTANCE = 2.2;  // m
+    public static final double CORAL_AUTO_DRIVE_TIME = 3.25;  // worst case, sec
+    public static final double CORAL_AUTO_EJECT_TIME = 1.25;  // sec
+
+    // 6 in wheels on 8.46:1 toughboxes
+    public static final double WHEEL_DIAMETER = 6 * 0.0254;  // m
+    public static final double GEAR_RATIO = 8.46;
+    public static final double WHEEL_CIRCUMFERENCE = Math.PI * WHEEL_DIAMETER;
+    // Motor rotations to wheel meters, RPM to m/s
+    public static final double POSITION_FACTOR = WHEEL_CIRCUMFERENCE / GEAR_RATIO;
+    public static final double VELOCITY_FACTOR = POSITION_FACTOR / 60;
+    public static final double TRACK_WIDTH = 0.55;  // m
+    // For the desktop drivetrain simulation
+    public static final double MASS = 50;  // kg, with bumpers and battery
+    public static final double MOI = 5.0;  // kg m^2
+
+    // Full stick maps to these
+    public static final double MAX_SPEED = 4.0;  // m/s
+    public static final double MAX_ANGULAR_SPEED = 2 * MAX_SPEED / TRACK_WIDTH;  // rad/s
+    // Highest acceleration the carpet takes without the wheels slipping. Traction gives
+    // about 1 g on a good carpet, this leaves margin for worn tread and a high CG
+    public static final double MAX_ACCEL = 5.0;  // m/s^2
+    public static final double MAX_ANGULAR_ACCEL = 2 * MAX_ACCEL / TRACK_WIDTH;  // rad/s^2
+
+    // Characterized feedforward (volts, V/(m/s), V/(m/s^2)) and Spark MAX velocity loop gain (duty per m/s)
+    public static final double kS = 0.15;
+    public static final double kV = 2.6;
+    public static final double kA = 0.45;
+    public static final double kP_VEL = 0.08;
+  }
+
+  public static final class AutoConstants {
+    // Trajectory limits, kept below the teleop limits so the follower has headroom to correct
+    public static final double MAX_SPEED = 2.5;  // m/s
+    public static final double MAX_ACCEL = 2.0;  // m/s^2
+    public static final double MAX_CENTRIPETAL_ACCEL = 2.0;  // m/s^2
+    public static final double MAX_VOLTAGE = 10;
+
+    public static final double CORAL_EJECT_TIME = 1.0;  // sec
+    // Shooter spin-up plus intake backoff, AlgieShootCommand feeds the algae this long after it starts
+    public static final double SHOOTER_SPINUP_LEAD = 0.001 * ShooterConstants.ShootStartTime;  // sec
   }
 
   public static final class RollerConstants {
@@ -47,6 +226,17 @@ public final class Constants {
     public static final double ROLLER_ALGAE_IN = 0.8;
     public static final double ROLLER_ALGAE_OUT = -0.8;
 
+    // Keeps algae in once it is detected, without heating the motors: a small output plus
+    // HOLD_KP per motor rotation the algae slipped out, at most HOLD_MAX
+    public static final double ROLLER_ALGAE_HOLD = 0.05;
+    public static final double HOLD_KP = 0.05;
+    public static final double HOLD_MAX = 0.3;
+    // Thermal derating, see ThermalMonitor: from the start temperature down to the floor at the
+    // limit. The hold stays strong enough to keep the algae
+    public static final double DERATE_START = 70;  // C
+    public static final double TEMPERATURE_LIMIT = 100;  // C
+    public static final double DERATE_FLOOR = 0.3;
+
     public static final double ROLLER_CORAL_OUT = -0.4;
     public static final double ROLLER_CORAL_STACK = -1;
 
@@ -54,6 +244,21 @@ public final class Constants {
     public static final double SpeedOut = -0.8;
     public static final double SpeedShoot = 0.4;
     public static final double SpeedBackoff = 0.2;
+
+    // Algae detection from the roller motors, see RollerSubsystem.hasGamePiece()
+    public static final double FREE_SPEED = 4700;  // motor RPM at full output, 10 V compensated
+    public static final double ALGAE_CURRENT = 25;  // A, both motors
+    // Fractions of the free speed at the current output: stalled on algae, spinning free
+    public static final double ALGAE_STALL = 0.3;
+    public static final double ALGAE_FREE = 0.6;
+    public static final double ALGAE_SPINUP = 0.25;  // sec ignored after the intake starts
+    public static final double ALGAE_DETECT_TIME = 0.1;  // sec
+    public static final double ALGAE_RELEASE_TIME = 0.2;  // sec
+    public static final int CURRENT_MEDIAN_TAPS = 5;
+    public static final double VELOCITY_FILTER_TIME = 0.06;  // sec
+
+    // Desktop simulation only, moment of inertia of the rollers at the motor shaft
+    public static final double SIM_MOI = 0.001;  // kg m^2
   }
 
   public static final class ShooterConstants {
@@ -63,6 +268,11 @@ public final class Constants {
     public static final int DOWN_MOTOR_IDR = 7;
 
     public static final int SHOOT_MOTOR_CURRENT_LIMIT = 40;
+    // Thermal derating, see ThermalMonitor. Shots get shorter before the wheels give up
+    public static final double DERATE_START = 80;  // C
+    public static final double TEMPERATURE_LIMIT = 110;  // C
+    public static final double DERATE_FLOOR = 0.6;
+
     public static final double SHOOT_MOTOR_VOLTAGE_COMP = 10;
 
     public static final double ALGAE_IN = -0.4;
@@ -110,6 +320,9 @@ public final class Constants {
 
     public static final double PositionDelta = 0.01;  // Relative
     public static final double RPMDelta = 0.1;  // Absolute
+
+    // Desktop simulation only, moment of inertia of each flywheel at the motor shaft
+    public static final double SIM_MOI = 0.002;  // kg m^2
   }
 
   public static final class ArmConstants {
@@ -117,6 +330,11 @@ public final class Constants {
     public static final int ARM_MOTOR_IDR = 5;
 
     public static final int ARM_MOTOR_CURRENT_LIMIT = 40;
+    // Thermal derating, see ThermalMonitor. The arm is stalled against its stops a lot
+    public static final double DERATE_START = 70;  // C
+    public static final double TEMPERATURE_LIMIT = 100;  // C
+    public static final double DERATE_FLOOR = 0.5;
+
     public static final double ARM_MOTOR_VOLTAGE_COMP = 10;
 
     // Even point ALMOST: 0.2/350/330 sec
@@ -138,6 +356,12 @@ public final class Constants {
     public static final double ARM_HOLD_DOWN = -0.05;
     public static final double ARM_HOLD_UP = 0.05;
 
+    // Active hold once homed: gravity feedforward kG cos(angle) plus HOLD_KP per motor rotation
+    // off the setpoint, at most HOLD_MAX
+    public static final double kG = 0.5;  // V, with the arm horizontal
+    public static final double HOLD_KP = 0.05;
+    public static final double HOLD_MAX = 0.15;
+
     public static final double ArmTimeUp = 2000;
 
     public static final double SpeedUp = -0.4;
@@ -148,10 +372,29 @@ public final class Constants {
     // Gear ratioo: 20:1, Chain ratio: 16:48, Overall ratio: 60:1
     public static final int GearRatio = 60;
 
-    // Motor shaft rotations
+    // Motor shaft rotations from the horizontal, once the arm is homed
     public static final double AngleUp = 18 * GearRatio / 360.0;
     public static final double AngleDown = -18 * GearRatio / 360.0;
     public static final double AngleMid = 9 * GearRatio / 360.0;
+    // Upper hard stop, where homing sets the encoder. Measure it on the robot
+    public static final double AngleHome = 20 * GearRatio / 360.0;
+
+    // Homing: driven up at HOME_OUTPUT until, after the spin-up, the current spikes or the
+    // motor stalls for HOME_STALL_TIME; given up after HOME_TIMEOUT
+    public static final double HOME_OUTPUT = 0.15;
+    public static final double HOME_CURRENT = 30;  // A, both motors
+    public static final double HOME_STALL_RPM = 50;  // motor RPM
+    public static final double HOME_SPINUP = 0.3;  // sec
+    public static final double HOME_STALL_TIME = 0.1;  // sec
+    public static final double HOME_TIMEOUT = 3.0;  // sec
+
+    // Absolute encoder on the arm shaft, a duty cycle input of the roboRIO, -1 for none.
+    // Its reading with the arm horizontal, in turns
+    public static final int ABSOLUTE_ENCODER_CHANNEL = -1;
+    public static final double ABSOLUTE_OFFSET = 0;
+
+    // Desktop simulation only, moment of inertia of the arm about its pivot
+    public static final double SIM_MOI = 0.5;  // kg m^2
 
     public static final double kP = 0.1;
     public static final double kD = 0.0;//0.0004;
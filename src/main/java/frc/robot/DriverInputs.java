@@ -0,0 +1,366 @@
+package frc.robot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.Constants.InputConstants;
+
+/**
+ * Single place the driver and operator controllers are read from, so what the drivers did can be
+ * recorded and played back.
+ *
+ * update() runs once per cycle before the scheduler. It samples every axis, the button bitmask
+ * and the POV of each controller port from the DriverStation into the current frame; during
+ * playback the frame comes from a recording instead. DriveCommand's suppliers and the Triggers
+ * bound in RobotContainer read the frame through {@link Controller}, so they cannot tell a
+ * recording from the real sticks.
+ *
+ * While recording, frames are appended to preallocated per-channel columns (axes quantized to
+ * shorts, buttons as one int, POV as a short) and written to a file once recording stops.
+ *
+ * File layout, big endian: int magic, int frame count, then each column in turn:
+ * for every port the axes (short each), the buttons (int each) and the POV (short each).
+ */
+public final class DriverInputs {
+    static final int MAGIC = 0x494e5031;  // "INP1"
+    static final int PORTS = 2;
+    static final int AXES = 6;
+    static final double AXIS_SCALE = Short.MAX_VALUE;
+
+    private static DriverInputs instance;
+
+    /** A recorded run of controller frames, one per robot cycle. */
+    public static final class Recording {
+        final short[][] axes;
+        final int[][] buttons;
+        final short[][] pov;
+        int count = 0;
+
+        Recording(int capacity) {
+            axes = new short[PORTS * AXES][capacity];
+            buttons = new int[PORTS][capacity];
+            pov = new short[PORTS][capacity];
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public double getDuration() {
+            return count * Constants.TimePeriod;
+        }
+    }
+
+    /** Reads one controller port through the current frame, with the CommandXboxController names. */
+    public final class Controller {
+        private final int port;
+
+        Controller(int port) {
+            this.port = port;
+        }
+
+        public double getLeftX() {
+            return axes[port][XboxController.Axis.kLeftX.value];
+        }
+
+        public double getLeftY() {
+            return axes[port][XboxController.Axis.kLeftY.value];
+        }
+
+        public double getRightX() {
+            return axes[port][XboxController.Axis.kRightX.value];
+        }
+
+        public double getRightY() {
+            return axes[port][XboxController.Axis.kRightY.value];
+        }
+
+        public boolean getButton(int button) {
+            return (buttons[port] & (1 << (button - 1))) != 0;
+        }
+
+        public Trigger button(int button) {
+            return new Trigger(() -> getButton(button));
+        }
+
+        public Trigger axisGreaterThan(int axis, double threshold) {
+            return new Trigger(() -> axes[port][axis] > threshold);
+        }
+
+        public Trigger a() { return button(XboxController.Button.kA.value); }
+        public Trigger b() { return button(XboxController.Button.kB.value); }
+        public Trigger x() { return button(XboxController.Button.kX.value); }
+        public Trigger y() { return button(XboxController.Button.kY.value); }
+        public Trigger leftBumper() { return button(XboxController.Button.kLeftBumper.value); }
+        public Trigger rightBumper() { return button(XboxController.Button.kRightBumper.value); }
+        public Trigger back() { return button(XboxController.Button.kBack.value); }
+        public Trigger start() { return button(XboxController.Button.kStart.value); }
+
+        public Trigger leftTrigger(double threshold) {
+            return axisGreaterThan(XboxController.Axis.kLeftTrigger.value, threshold);
+        }
+
+        public Trigger rightTrigger(double threshold) {
+            return axisGreaterThan(XboxController.Axis.kRightTrigger.value, threshold);
+        }
+
+        public Trigger pov(int angle) {
+            return new Trigger(() -> pov[port] == angle);
+        }
+    }
+
+    // The current frame as one logged input, so a log replay drives the controllers too
+    private final class Frame implements LoggedInputs {
+        private final String[] names = new String[PORTS * (AXES + 2)];
+
+        Frame() {
+            int i = 0;
+            for (int port = 0; port < PORTS; ++port) {
+                for (int axis = 0; axis < AXES; ++axis)
+                    names[i++] = port + "/Axis" + axis;
+                names[i++] = port + "/Buttons";
+                names[i++] = port + "/POV";
+            }
+        }
+
+        @Override public String[] names() {
+            return names;
+        }
+
+        @Override public void toArray(double[] v) {
+            int i = 0;
+            for (int port = 0; port < PORTS; ++port) {
+                for (int axis = 0; axis < AXES; ++axis)
+                    v[i++] = axes[port][axis];
+                v[i++] = buttons[port];
+                v[i++] = pov[port];
+            }
+        }
+
+        @Override public void fromArray(double[] v) {
+            int i = 0;
+            for (int port = 0; port < PORTS; ++port) {
+                for (int axis = 0; axis < AXES; ++axis)
+                    axes[port][axis] = v[i++];
+                buttons[port] = (int) v[i++];
+                pov[port] = (int) v[i++];
+            }
+        }
+    }
+
+    // Current frame, read by the controllers
+    private final double[][] axes = new double[PORTS][AXES];
+    private final int[] buttons = new int[PORTS];
+    private final int[] pov = new int[PORTS];
+    private final Controller[] controllers = new Controller[PORTS];
+    private final Frame frame = new Frame();
+
+    private Recording recording;
+    private Recording playback;
+    private int playbackIndex = 0;
+
+    // Loop cost while playing back, for profiling with real driver workloads
+    private long cycleNanos = 0;
+    private long maxCycleNanos = 0;
+
+    public static synchronized DriverInputs getInstance() {
+        if (instance == null)
+            instance = new DriverInputs();
+        return instance;
+    }
+
+    private DriverInputs() {
+        for (int port = 0; port < PORTS; ++port) {
+            controllers[port] = new Controller(port);
+            pov[port] = -1;
+        }
+    }
+
+    public Controller controller(int port) {
+        return controllers[port];
+    }
+
+    /**
+     * Loads the current frame from the controllers, the playback or a replayed match log, and
+     * logs it. Call once per cycle before the scheduler.
+     */
+    public void update() {
+        InputsLog log = InputsLog.getInstance();
+        if (log.isReplay()) {
+            log.replay("Controllers", frame);
+        } else if (playback != null) {
+            if (playbackIndex < playback.count)
+                readFrame(playback, playbackIndex++);
+        } else {
+            sample();
+            if (recording != null && recording.count < InputConstants.RECORD_CAPACITY)
+                writeFrame(recording, recording.count++);
+        }
+        log.record("Controllers", frame);
+    }
+
+    private void sample() {
+        for (int port = 0; port < PORTS; ++port) {
+            int axisCount = DriverStation.getStickAxisCount(port);
+            for (int axis = 0; axis < AXES; ++axis)
+                axes[port][axis] = axis < axisCount ? DriverStation.getStickAxis(port, axis) : 0;
+            buttons[port] = DriverStation.getStickButtons(port);
+            pov[port] = DriverStation.getStickPOVCount(port) > 0 ? DriverStation.getStickPOV(port, 0) : -1;
+        }
+    }
+
+    private void readFrame(Recording r, int i) {
+        for (int port = 0; port < PORTS; ++port) {
+            for (int axis = 0; axis < AXES; ++axis)
+                axes[port][axis] = r.axes[port * AXES + axis][i] / AXIS_SCALE;
+            buttons[port] = r.buttons[port][i];
+            pov[port] = r.pov[port][i];
+        }
+    }
+
+    private void writeFrame(Recording r, int i) {
+        for (int port = 0; port < PORTS; ++port) {
+            for (int axis = 0; axis < AXES; ++axis)
+                r.axes[port * AXES + axis][i] = (short) Math.round(axes[port][axis] * AXIS_SCALE);
+            r.buttons[port][i] = buttons[port];
+            r.pov[port][i] = (short) pov[port];
+        }
+    }
+
+    /** Starts a new recording; frames are kept in memory until stopRecording(). */
+    public void startRecording() {
+        if (recording == null)
+            recording = new Recording(InputConstants.RECORD_CAPACITY);
+        recording.count = 0;
+    }
+
+    /** Stops recording and writes the frames to a new file in the operating directory, off the main thread. */
+    public void stopRecording() {
+        Recording done = recording;
+        recording = null;
+        if (done == null || done.count == 0)
+            return;
+        String name = "inputs-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + InputConstants.EXTENSION;
+        File file = new File(Filesystem.getOperatingDirectory(), name);
+        RobotThreads.LOGGING.submit(() -> {
+            try {
+                write(file, done);
+                System.out.printf("Inputs recorded: %d frames to %s%n", done.count, file);
+            } catch (IOException e) {
+                System.out.println("Inputs not saved: " + e.getMessage());
+            }
+        });
+    }
+
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    /** Replaces the controllers with the recording, from its first frame, until it runs out or stopPlayback(). */
+    public void startPlayback(Recording r) {
+        playback = r;
+        playbackIndex = 0;
+        cycleNanos = 0;
+        maxCycleNanos = 0;
+    }
+
+    public void stopPlayback() {
+        if (playback == null)
+            return;
+        if (playbackIndex > 0)
+            System.out.printf("REPLAY, %d frames, mean %.3f ms, max %.3f ms%n", playbackIndex,
+                cycleNanos * 1e-6 / playbackIndex, maxCycleNanos * 1e-6);
+        playback = null;
+        for (int port = 0; port < PORTS; ++port) {
+            Arrays.fill(axes[port], 0);
+            buttons[port] = 0;
+            pov[port] = -1;
+        }
+    }
+
+    public boolean isPlaybackDone() {
+        return playback == null || playbackIndex >= playback.count;
+    }
+
+    /** Adds the cost of one robot cycle to the playback profile. */
+    public void addCycleTime(long nanos) {
+        if (playback == null)
+            return;
+        cycleNanos += nanos;
+        maxCycleNanos = Math.max(maxCycleNanos, nanos);
+    }
+
+    /**
+     * Command that plays the recording back and ends with it. It requires no subsystem:
+     * the default DriveCommand and the bound Triggers pick the inputs up as if a driver was there.
+     */
+    public Command playbackCommand(Recording r) {
+        return new Command() {
+            @Override public void initialize() {
+                startPlayback(r);
+            }
+            @Override public boolean isFinished() {
+                return isPlaybackDone();
+            }
+            @Override public void end(boolean interrupted) {
+                stopPlayback();
+            }
+            @Override public boolean runsWhenDisabled() {
+                return true;
+            }
+        };
+    }
+
+    static void write(File file, Recording r) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(r.count);
+            for (int port = 0; port < PORTS; ++port) {
+                for (int axis = 0; axis < AXES; ++axis)
+                    for (int i = 0; i < r.count; ++i)
+                        out.writeShort(r.axes[port * AXES + axis][i]);
+                for (int i = 0; i < r.count; ++i)
+                    out.writeInt(r.buttons[port][i]);
+                for (int i = 0; i < r.count; ++i)
+                    out.writeShort(r.pov[port][i]);
+            }
+        }
+    }
+
+    public static Recording read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file.getName() + " is not an input recording");
+            // A corrupt count must not size the arrays, a short file ends in an EOFException
+            int count = in.readInt();
+            if (count < 0 || count > InputConstants.RECORD_CAPACITY)
+                throw new IOException(file.getName() + " has a bad cycle count " + count);
+            Recording r = new Recording(count);
+            for (int port = 0; port < PORTS; ++port) {
+                for (int axis = 0; axis < AXES; ++axis)
+                    for (int i = 0; i < count; ++i)
+                        r.axes[port * AXES + axis][i] = in.readShort();
+                for (int i = 0; i < count; ++i)
+                    r.buttons[port][i] = in.readInt();
+                for (int i = 0; i < count; ++i)
+                    r.pov[port][i] = in.readShort();
+            }
+            r.count = count;
+            return r;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.function.DoubleSupplier;
+
+import com.revrobotics.spark.SparkBase;
+
+import edu.wpi.first.hal.can.CANJNI;
+import edu.wpi.first.hal.can.CANStatus;
+import edu.wpi.first.util.datalog.DataLogWriter;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.RecorderConstants;
+
+/**
+ * Keeps the last seconds of everything the robot saw and did, and saves them when something
+ * goes wrong, so a brownout or a fault in a match can be looked at without a full log.
+ *
+ * Each value has a ring of RecorderConstants.CAPACITY doubles, one per cycle, allocated when
+ * the value is first seen. Recorded are the inputs of every subsystem as InputsLog records
+ * them, the outputs and setpoints of the Telemetry groups, battery voltage and brownout, the
+ * CAN bus status, the active fault flag of every watched Spark MAX, and the cycle time and
+ * loop period. A value not recorded in a cycle, e.g. by background work, keeps its last one.
+ * Per cycle this is a copy of each value into its ring, no allocation and nothing that blocks.
+ *
+ * A snapshot is taken on a brownout, a Spark MAX fault, RecorderConstants.OVERRUN_STREAK
+ * overrun cycles in a row, and when the robot is disabled after running. The rings are copied
+ * at the end of the cycle and written by the logging thread as a WPILog named
+ * flight_&lt;time&gt;_&lt;reason&gt;.wpilog, next to the match logs, which AdvantageScope opens like any
+ * other. Triggers during a write or within RecorderConstants.HOLDOFF of the last snapshot wait
+ * for it, the event is still in the rings then. Nothing is saved while replaying a log.
+ */
+public final class FlightRecorder {
+    private static FlightRecorder instance;
+
+    private final int capacity = RecorderConstants.CAPACITY;
+    private final long[] times = new long[capacity];  // FPGA us
+    private String[] names = new String[0];
+    private double[][] rings = new double[0][];
+    private int columns = 0;
+    private int row = -1;    // ring index of the current cycle
+    private int filled = 0;  // rows holding a cycle
+
+    // Values sampled at the end of each cycle
+    private DoubleSupplier[] signals = new DoubleSupplier[0];
+    private int[] signalColumns = new int[0];
+
+    // Spark MAX checked for faults, one per cycle in turn
+    private SparkBase[] sparks = new SparkBase[0];
+    private int[] faultColumns = new int[0];
+    private int nextSpark = 0;
+
+    private final CANStatus can = new CANStatus();
+    private final int cycleColumn;
+    private final int periodColumn;
+    private final int brownoutColumn;
+    private final int overrunColumn;
+    private final int canColumn;
+    private LoopTiming loopTiming;
+
+    // Triggers
+    private boolean brownedOut = false;
+    private int overrunStreak = 0;
+    private boolean enabledSinceSnapshot = false;
+    private String pending;
+    private double lastSnapshot = Double.NEGATIVE_INFINITY;
+    private int snapshots = 0;
+
+    // Copy of the rings handed to the logging thread, reused while it is not writing
+    private double[][] copy;
+    private final long[] copyTimes = new long[capacity];
+    private volatile boolean writing = false;
+
+    public static synchronized FlightRecorder getInstance() {
+        if (instance == null)
+            instance = new FlightRecorder();
+        return instance;
+    }
+
+    private FlightRecorder() {
+        cycleColumn = addColumns("Robot", new String[] {"CycleTime"});
+        periodColumn = addColumns("Robot", new String[] {"LoopPeriod"});
+        brownoutColumn = addColumns("Robot", new String[] {"BrownedOut"});
+        overrunColumn = addColumns("Robot", new String[] {"Overrun"});
+        canColumn = addColumns("CAN", new String[] {"Utilization", "BusOff", "TxFull", "RxErrors", "TxErrors"});
+    }
+
+    /** Adds a value per name, /&lt;prefix&gt;/&lt;name&gt;, and returns the column of the first. */
+    public int addColumns(String prefix, String[] fields) {
+        int first = columns;
+        columns += fields.length;
+        names = Arrays.copyOf(names, columns);
+        rings = Arrays.copyOf(rings, columns);
+        for (int i = 0; i < fields.length; ++i) {
+            names[first + i] = "/" + prefix + "/" + fields[i];
+            rings[first + i] = new double[capacity];
+        }
+        return first;
+    }
+
+    /** Records a value sampled at the end of every cycle, e.g. an output or a setpoint. */
+    public void addSignal(String prefix, String name, DoubleSupplier source) {
+        int n = signals.length;
+        signals = Arrays.copyOf(signals, n + 1);
+        signalColumns = Arrays.copyOf(signalColumns, n + 1);
+        signals[n] = source;
+        signalColumns[n] = addColumns(prefix, new String[] {name});
+    }
+
+    /** Records the fault flag of a Spark MAX and snapshots when it gets a fault. */
+    public void watch(String name, SparkBase spark) {
+        int n = sparks.length;
+        sparks = Arrays.copyOf(sparks, n + 1);
+        faultColumns = Arrays.copyOf(faultColumns, n + 1);
+        sparks[n] = spark;
+        faultColumns[n] = addColumns("Faults", new String[] {name});
+    }
+
+    /** Records the period of the main loop. */
+    public void setLoopTiming(LoopTiming loopTiming) {
+        this.loopTiming = loopTiming;
+    }
+
+    /** Starts the row of a new cycle. Call first thing in robotPeriodic(), before any input. */
+    public void startCycle() {
+        int previous = row;
+        row = (row + 1) % capacity;
+        filled = Math.min(filled + 1, capacity);
+        times[row] = RobotController.getFPGATime();
+        if (previous < 0)
+            return;
+        for (int i = 0; i < columns; ++i)
+            rings[i][row] = rings[i][previous];
+    }
+
+    /** Records consecutive values, e.g. the fields of one subsystem's inputs. */
+    public void record(int column, double[] values) {
+        if (row < 0)
+            return;
+        for (int i = 0; i < values.length; ++i)
+            rings[column + i][row] = values[i];
+    }
+
+    /**
+     * Samples the signals, the bus and the Spark MAX faults, and takes a snapshot if something
+     * asked for it. Call last thing in robotPeriodic().
+     *
+     * @param cycleNanos time robotPeriodic() took
+     */
+    public void endCycle(long cycleNanos) {
+        if (row < 0)
+            return;
+        for (int i = 0; i < signals.length; ++i)
+            rings[signalColumns[i]][row] = signals[i].getAsDouble();
+
+        rings[cycleColumn][row] = cycleNanos * 1e-6;
+        if (loopTiming != null)
+            rings[periodColumn][row] = loopTiming.getLastPeriod() * 1e3;
+
+        CANJNI.getCANStatus(can);
+        rings[canColumn][row] = can.percentBusUtilization;
+        rings[canColumn + 1][row] = can.busOffCount;
+        rings[canColumn + 2][row] = can.txFullCount;
+        rings[canColumn + 3][row] = can.receiveErrorCount;
+        rings[canColumn + 4][row] = can.transmitErrorCount;
+
+        boolean brownout = RobotController.isBrownedOut();
+        rings[brownoutColumn][row] = brownout ? 1 : 0;
+        if (brownout && !brownedOut)
+            trigger("Brownout");
+        brownedOut = brownout;
+
+        boolean overrun = TieredScheduler.getInstance().isOverrun();
+        rings[overrunColumn][row] = overrun ? 1 : 0;
+        overrunStreak = overrun ? overrunStreak + 1 : 0;
+        if (overrunStreak == RecorderConstants.OVERRUN_STREAK)
+            trigger("Overrun");
+
+        if (sparks.length > 0) {
+            int column = faultColumns[nextSpark];
+            boolean fault = sparks[nextSpark].hasActiveFault();
+            if (fault && rings[column][row] == 0)
+                trigger("Fault" + names[column].substring(names[column].lastIndexOf('/') + 1));
+            rings[column][row] = fault ? 1 : 0;
+            nextSpark = (nextSpark + 1) % sparks.length;
+        }
+
+        if (DriverStation.isEnabled())
+            enabledSinceSnapshot = true;
+        if (pending != null)
+            snapshot();
+    }
+
+    /** Keeps the run that just ended. Call from disabledInit(), the boot itself is not kept. */
+    public void disabled() {
+        if (enabledSinceSnapshot)
+            trigger("Disable");
+    }
+
+    /** Asks for a snapshot at the end of the cycle. The first reason is kept until it is taken. */
+    public void trigger(String reason) {
+        if (pending == null && snapshots < RecorderConstants.MAX_SNAPSHOTS && !InputsLog.getInstance().isReplay())
+            pending = reason;
+    }
+
+    private void snapshot() {
+        if (writing || Timer.getFPGATimestamp() - lastSnapshot < RecorderConstants.HOLDOFF)
+            return;
+        String reason = pending;
+        pending = null;
+        lastSnapshot = Timer.getFPGATimestamp();
+        enabledSinceSnapshot = false;
+        ++snapshots;
+
+        if (copy == null || copy.length != columns) {
+            copy = new double[columns][];
+            for (int i = 0; i < columns; ++i)
+                copy[i] = new double[capacity];
+        }
+        for (int i = 0; i < columns; ++i)
+            System.arraycopy(rings[i], 0, copy[i], 0, capacity);
+        System.arraycopy(times, 0, copyTimes, 0, capacity);
+        String[] columnNames = names;
+        int rows = filled;
+        int first = (row - rows + 1 + capacity) % capacity;
+
+        writing = true;
+        if (!RobotThreads.LOGGING.submit(() -> write(reason, columnNames, rows, first)))
+            writing = false;
+    }
+
+    // On the logging thread
+    private void write(String reason, String[] columnNames, int rows, int first) {
+        String time = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        File file = new File(DataLogManager.getLogDir(), "flight_" + time + "_" + reason + ".wpilog");
+        try {
+            DataLogWriter log = new DataLogWriter(file.getPath());
+            long start = copyTimes[first];
+            for (int i = 0; i < columnNames.length; ++i) {
+                DoubleLogEntry entry = new DoubleLogEntry(log, columnNames[i], start);
+                for (int r = 0; r < rows; ++r) {
+                    int k = (first + r) % capacity;
+                    entry.append(copy[i][k], copyTimes[k]);
+                }
+            }
+            log.close();
+            System.out.printf("RECORDER, %s, %d cycles, %s%n", reason, rows, file.getName());
+        } catch (IOException e) {
+            System.out.println("RECORDER, " + reason + " not saved: " + e.getMessage());
+        } finally {
+            writing = false;
+        }
+    }
+}
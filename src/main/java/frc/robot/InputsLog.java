@@ -0,0 +1,215 @@
+package frc.robot;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Logs the inputs of every IO layer and, when replaying, feeds them back from a match log.
+ *
+ * Each cycle starts with a marker entry (/Robot/Cycle) followed by the robot state and then the
+ * inputs of each subsystem as it runs periodic(), one double entry per field, named
+ * /&lt;prefix&gt;/&lt;field&gt;. A replay loads the whole log into per-entry columns indexed by cycle
+ * before it starts, so stepping through it costs nothing but the control code itself.
+ */
+public final class InputsLog {
+    static final String CYCLE_ENTRY = "/Robot/Cycle";
+
+    private static InputsLog instance;
+
+    /** Robot state that decides which mode code runs, replayed through the simulated DS. */
+    public static final class RobotInputs implements LoggedInputs {
+        private static final String[] NAMES = {"Enabled", "Autonomous", "Test", "BatteryVoltage"};
+
+        public boolean enabled;
+        public boolean autonomous;
+        public boolean test;
+        public double batteryVoltage;
+
+        @Override public String[] names() {
+            return NAMES;
+        }
+
+        @Override public void toArray(double[] v) {
+            v[0] = enabled ? 1 : 0;
+            v[1] = autonomous ? 1 : 0;
+            v[2] = test ? 1 : 0;
+            v[3] = batteryVoltage;
+        }
+
+        @Override public void fromArray(double[] v) {
+            enabled = v[0] != 0;
+            autonomous = v[1] != 0;
+            test = v[2] != 0;
+            batteryVoltage = v[3];
+        }
+    }
+
+    // Log entries and scratch array of one subsystem, created on first use
+    private static final class Channel {
+        final String[] names;
+        final DoubleLogEntry[] entries;
+        final double[] values;
+        final int recorderColumn;
+        double[][] columns;
+
+        Channel(DataLog log, String prefix, String[] names) {
+            this.names = names;
+            entries = new DoubleLogEntry[names.length];
+            values = new double[names.length];
+            for (int i = 0; i < names.length; ++i)
+                entries[i] = new DoubleLogEntry(log, "/" + prefix + "/" + names[i]);
+            recorderColumn = FlightRecorder.getInstance().addColumns(prefix, names);
+        }
+    }
+
+    private final Map<String, Channel> channels = new HashMap<>();
+    private final RobotInputs robotInputs = new RobotInputs();
+    private DoubleLogEntry cycleEntry;
+
+    // Replay data, per entry name one value per cycle
+    private Map<String, double[]> replayColumns;
+    private int replayCycles = 0;
+    private int replayCycle = 0;
+
+    public static synchronized InputsLog getInstance() {
+        if (instance == null)
+            instance = new InputsLog();
+        return instance;
+    }
+
+    private InputsLog() {
+    }
+
+    private Channel channel(String prefix, LoggedInputs inputs) {
+        Channel c = channels.get(prefix);
+        if (c == null) {
+            c = new Channel(DataLogManager.getLog(), prefix, inputs.names());
+            if (replayColumns != null) {
+                c.columns = new double[c.names.length][];
+                for (int i = 0; i < c.names.length; ++i)
+                    c.columns[i] = replayColumns.get("/" + prefix + "/" + c.names[i]);
+            }
+            channels.put(prefix, c);
+        }
+        return c;
+    }
+
+    /** Marks the start of a cycle and logs the robot state. Call first thing in robotPeriodic(). */
+    public void startCycle() {
+        if (cycleEntry == null)
+            cycleEntry = new DoubleLogEntry(DataLogManager.getLog(), CYCLE_ENTRY);
+        cycleEntry.append(Timer.getFPGATimestamp());
+        robotInputs.enabled = DriverStation.isEnabled();
+        robotInputs.autonomous = DriverStation.isAutonomous();
+        robotInputs.test = DriverStation.isTest();
+        robotInputs.batteryVoltage = RobotController.getBatteryVoltage();
+        record("Robot", robotInputs);
+    }
+
+    /** Appends every field of the inputs to the log and the flight recorder. */
+    public void record(String prefix, LoggedInputs inputs) {
+        Channel c = channel(prefix, inputs);
+        inputs.toArray(c.values);
+        for (int i = 0; i < c.values.length; ++i)
+            c.entries[i].append(c.values[i]);
+        FlightRecorder.getInstance().record(c.recorderColumn, c.values);
+    }
+
+    /** Sets the inputs from the replayed log at the current cycle. Fields missing from the log read 0. */
+    public void replay(String prefix, LoggedInputs inputs) {
+        if (replayColumns == null)
+            return;
+        Channel c = channel(prefix, inputs);
+        for (int i = 0; i < c.values.length; ++i)
+            c.values[i] = c.columns[i] != null ? c.columns[i][replayCycle] : 0;
+        inputs.fromArray(c.values);
+    }
+
+    public boolean isReplay() {
+        return replayColumns != null;
+    }
+
+    public int getReplayCycles() {
+        return replayCycles;
+    }
+
+    public void setReplayCycle(int cycle) {
+        replayCycle = cycle;
+    }
+
+    /** Robot state logged at the current replay cycle. */
+    public RobotInputs getReplayRobotInputs() {
+        replay("Robot", robotInputs);
+        return robotInputs;
+    }
+
+    /**
+     * Loads a WPILog for replay. Must be called before any subsystem is created.
+     * A value missing in a cycle repeats the last one logged before it.
+     */
+    public void startReplay(String filename) throws IOException {
+        DataLogReader reader = new DataLogReader(filename);
+        if (!reader.isValid())
+            throw new IOException(filename + " is not a WPILog");
+
+        // First pass counts the cycles, second pass fills the columns
+        Map<Integer, String> names = new HashMap<>();
+        int cycles = 0;
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                if (start.type.equals("double"))
+                    names.put(start.entry, start.name);
+            } else if (!record.isControl() && CYCLE_ENTRY.equals(names.get(record.getEntry()))) {
+                ++cycles;
+            }
+        }
+
+        Map<String, double[]> columns = new HashMap<>();
+        int cycle = -1;
+        for (DataLogRecord record : reader) {
+            if (record.isControl())
+                continue;
+            String name = names.get(record.getEntry());
+            if (name == null)
+                continue;
+            if (name.equals(CYCLE_ENTRY)) {
+                ++cycle;
+                continue;
+            }
+            if (cycle < 0)
+                continue;
+            double[] column = columns.get(name);
+            if (column == null) {
+                column = new double[cycles];
+                Arrays.fill(column, Double.NaN);
+                columns.put(name, column);
+            }
+            column[cycle] = record.getDouble();
+        }
+        for (double[] column : columns.values()) {
+            double last = 0;
+            for (int i = 0; i < column.length; ++i) {
+                if (Double.isNaN(column[i]))
+                    column[i] = last;
+                last = column[i];
+            }
+        }
+
+        replayColumns = columns;
+        replayCycles = cycles;
+        replayCycle = 0;
+        System.out.printf("Replay: %d cycles, %d entries from %s%n", cycles, columns.size(), filename);
+    }
+}
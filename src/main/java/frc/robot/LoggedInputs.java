@@ -0,0 +1,17 @@
+package frc.robot;
+
+/**
+ * Sensor values an IO layer reads once per cycle. The values are exchanged as a flat array in
+ * the order of names(), so InputsLog can log every field to its own entry and put them back
+ * from a log when replaying.
+ */
+public interface LoggedInputs {
+    /** Field names in array order, used as log entry names under the subsystem prefix. */
+    String[] names();
+
+    /** Copies the fields into values, in names() order. */
+    void toArray(double[] values);
+
+    /** Sets the fields from values, in names() order. */
+    void fromArray(double[] values);
+}
@@ -0,0 +1,126 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants.ThreadConstants;
+
+/**
+ * Histogram of the time between the starts of two iterations of a loop, to see how steady
+ * its period is. Each period is also logged, under /Timing/&lt;name&gt;/Period.
+ *
+ * The histogram is only touched by the thread running the loop. A report is requested from
+ * anywhere with requestReport() and made by that thread on its next iteration: the p50, p99
+ * and max periods and the count of late iterations go to the dashboard and the console as
+ * "JITTER, name, cycles, mean ms, std ms, p50 ms, p99 ms, max ms, late", then the histogram
+ * starts over.
+ */
+public final class LoopTiming {
+    private static final List<LoopTiming> all = new ArrayList<>();
+
+    private final String name;
+    private final double period;
+    private final long[] bins;  // ThreadConstants.JITTER_BIN wide, the last one is everything longer
+    private final DoubleLogEntry logPeriod;
+    private long last = 0;
+    private double lastPeriod = 0;
+    private int cycles = 0;
+    private double sum = 0;
+    private double sumSquares = 0;
+    private double max = 0;
+    private int late = 0;
+    private volatile boolean reportRequested = false;
+
+    /** @param period nominal period of the loop, in seconds */
+    public LoopTiming(String name, double period) {
+        this.name = name;
+        this.period = period;
+        bins = new long[(int) Math.ceil(2 * period / ThreadConstants.JITTER_BIN) + 1];
+        logPeriod = new DoubleLogEntry(DataLogManager.getLog(), "/Timing/" + name + "/Period");
+        synchronized (all) {
+            all.add(this);
+        }
+    }
+
+    /** Call first thing in every iteration, on the loop's own thread. */
+    public void mark() {
+        long now = System.nanoTime();
+        if (last != 0) {
+            double dt = (now - last) * 1e-9;
+            lastPeriod = dt;
+            ++bins[Math.min((int) (dt / ThreadConstants.JITTER_BIN), bins.length - 1)];
+            ++cycles;
+            sum += dt;
+            sumSquares += dt * dt;
+            max = Math.max(max, dt);
+            if (dt > period + ThreadConstants.JITTER_LATE)
+                ++late;
+            logPeriod.append(dt);
+        }
+        last = now;
+
+        if (reportRequested) {
+            reportRequested = false;
+            report();
+        }
+    }
+
+    /** The latest period, in seconds, 0 before the second iteration. */
+    public double getLastPeriod() {
+        return lastPeriod;
+    }
+
+    /** Asks for a report at the next iteration. */
+    public void requestReport() {
+        reportRequested = true;
+    }
+
+    /** Asks every loop for a report, e.g. when a match ends. */
+    public static void requestReports() {
+        synchronized (all) {
+            for (LoopTiming t : all)
+                t.requestReport();
+        }
+    }
+
+    private double percentile(double p) {
+        long rank = (long) Math.ceil(p * cycles);
+        long count = 0;
+        for (int i = 0; i < bins.length; ++i) {
+            count += bins[i];
+            if (count >= rank)
+                return i < bins.length - 1 ? (i + 0.5) * ThreadConstants.JITTER_BIN : max;
+        }
+        return max;
+    }
+
+    private void report() {
+        if (cycles == 0)
+            return;
+        double mean = sum / cycles;
+        double std = Math.sqrt(Math.max(0, sumSquares / cycles - mean * mean));
+        double p50 = percentile(0.5);
+        double p99 = percentile(0.99);
+        int n = cycles;
+        double worst = max;
+        int lateCount = late;
+
+        // Printing and publishing go to the telemetry thread, the loop only reads its bins
+        RobotThreads.TELEMETRY.submit(() -> {
+            SmartDashboard.putNumber("Timing/" + name + "/p99 ms", p99 * 1e3);
+            SmartDashboard.putNumber("Timing/" + name + "/max ms", worst * 1e3);
+            SmartDashboard.putNumber("Timing/" + name + "/late", lateCount);
+            System.out.printf("JITTER, %s, %d, %.3f, %.3f, %.3f, %.3f, %.3f, %d%n", name, n, mean * 1e3, std * 1e3,
+                p50 * 1e3, p99 * 1e3, worst * 1e3, lateCount);
+        });
+
+        Arrays.fill(bins, 0);
+        cycles = 0;
+        sum = sumSquares = max = 0;
+        late = 0;
+    }
+}
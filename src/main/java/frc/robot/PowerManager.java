@@ -0,0 +1,184 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.math.filter.LinearFilter;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.AllocationConstants;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.Constants.TelemetryConstants;
+
+/**
+ * Shares the battery between the mechanisms so that driving hard while the shooter spins up
+ * does not pull the battery into brownout.
+ *
+ * Every cycle the total current the battery can supply while staying above
+ * PowerConstants.TARGET_VOLTAGE is estimated from the measured voltage and a simple internal
+ * resistance model. That budget is handed out by priority: each load may use whatever is left
+ * after the higher priority loads took what they are drawing right now, bounded by its minimum
+ * and nominal limits. When the budget is below the sum of the minimums, the minimums are all
+ * scaled down by the same factor so the budget still holds. The result is
+ * applied as a smart current limit on the controllers (only when it moves by a full step, since
+ * each change is a CAN config write), and as an output cap on the lower priority loads when the
+ * voltage is already sagging. Every load's output is also scaled by the derate of its motor
+ * temperature, from the ThermalMonitor.
+ */
+public class PowerManager extends SubsystemBase {
+
+    /** A mechanism whose current the power manager may limit. */
+    public interface Load {
+        /** Total output current of all motors of the mechanism, in amps. */
+        double getOutputCurrent();
+
+        /** Temperature of the hottest motor as reported by its controller, in C, 0 if unknown. */
+        default double getMotorTemperature() {
+            return 0;
+        }
+
+        /** Scales all outputs of the mechanism, 1.0 means no cap. */
+        void setOutputScale(double scale);
+
+        /** Sets the smart current limit of every motor of the mechanism, in amps per motor. */
+        void setCurrentLimit(int amps);
+    }
+
+    private static class Entry {
+        final String name;
+        final Load load;
+        final int motors;
+        final int nominalLimit;
+        final int minLimit;
+        final boolean capOutput;
+        final ThermalModel thermal;
+        int appliedLimit;
+        double current = 0;
+        double lastChange = 0;
+
+        Entry(String name, Load load, int motors, int nominalLimit, int minLimit, boolean capOutput) {
+            this.name = name;
+            this.load = load;
+            this.motors = motors;
+            this.nominalLimit = nominalLimit;
+            this.minLimit = minLimit;
+            this.capOutput = capOutput;
+            thermal = ThermalMonitor.getInstance().find(load);
+            appliedLimit = nominalLimit;
+        }
+    }
+
+    // Entries are kept in priority order, highest priority first
+    private final List<Entry> loads = new ArrayList<>();
+    private int minTotal = 0;  // sum of the minimum limits of all loads, in amps
+    private final LinearFilter voltageFilter = LinearFilter.movingAverage(PowerConstants.VOLTAGE_FILTER_TAPS);
+
+    private double voltage = 12;
+    private double current = 0;
+    private double budget = 0;
+    private double outputScale = 1;
+
+    private final DataLog log = DataLogManager.getLog();
+    private final DoubleLogEntry logVoltage = new DoubleLogEntry(log, "/Power/Voltage");
+    private final DoubleLogEntry logCurrent = new DoubleLogEntry(log, "/Power/Current");
+    private final DoubleLogEntry logBudget = new DoubleLogEntry(log, "/Power/Budget");
+    private final DoubleLogEntry logScale = new DoubleLogEntry(log, "/Power/OutputScale");
+    private final AllocationMeter.HotPath hotPath =
+        AllocationMeter.getInstance().hotPath("Power", AllocationConstants.POWER_PERIODIC);
+
+    public PowerManager() {
+        Telemetry.getInstance().group("Power")
+            .signal("voltage", () -> voltage, TelemetryConstants.SLOW, 0.05)
+            .signal("current", () -> current, TelemetryConstants.SLOW, 1)
+            .signal("budget", () -> budget, TelemetryConstants.SLOW, 1)
+            .signal("outputScale", () -> outputScale, 1, 0.01)
+            .start();
+    }
+
+    /**
+     * Adds a load. Loads must be registered from highest to lowest priority, after they were
+     * added to the ThermalMonitor.
+     *
+     * @param motors number of motors sharing the per-motor current limit
+     * @param nominalLimit per-motor limit when there is plenty of battery, in amps
+     * @param minLimit per-motor limit the load never goes below, in amps
+     * @param capOutput whether the load's output may be scaled down when the voltage sags
+     */
+    public void register(String name, Load load, int motors, int nominalLimit, int minLimit, boolean capOutput) {
+        loads.add(new Entry(name, load, motors, nominalLimit, minLimit, capOutput));
+        minTotal += minLimit * motors;
+    }
+
+    @Override
+    public void periodic() {
+        hotPath.begin();
+        voltage = voltageFilter.calculate(RobotController.getBatteryVoltage());
+        current = 0;
+        for (Entry e : loads) {
+            e.current = e.load.getOutputCurrent();
+            current += e.current;
+        }
+
+        // Open-circuit voltage estimate, then the total current that keeps us at the target voltage
+        double openVoltage = voltage + current * PowerConstants.BATTERY_RESISTANCE;
+        budget = Math.max(0, (openVoltage - PowerConstants.TARGET_VOLTAGE) / PowerConstants.BATTERY_RESISTANCE);
+
+        double remaining = budget;
+        double now = Timer.getFPGATimestamp();
+        // The minimums alone may add up to more than the battery can give
+        double minScale = minTotal > budget ? budget / minTotal : 1.0;
+        for (Entry e : loads) {
+            double minLimit = Math.max(PowerConstants.MIN_CURRENT_LIMIT, e.minLimit * minScale);
+            int limit = (int) PIDCtrl.limitSignedRange(remaining / e.motors, minLimit, e.nominalLimit);
+            remaining -= Math.min(e.current, limit * e.motors);
+            updateLimit(e, limit, now);
+        }
+
+        // Below the target voltage the current limits alone react too slowly, so the
+        // lower priority loads are also scaled down in proportion to the remaining headroom
+        outputScale = PIDCtrl.limitSignedRange(
+            (voltage - PowerConstants.BROWNOUT_VOLTAGE) / (PowerConstants.TARGET_VOLTAGE - PowerConstants.BROWNOUT_VOLTAGE),
+            PowerConstants.MIN_OUTPUT_SCALE, 1.0);
+        // Each load is also derated by its own motor temperature, see ThermalMonitor
+        for (Entry e : loads)
+            e.load.setOutputScale((e.capOutput ? outputScale : 1.0) * (e.thermal != null ? e.thermal.getDerate() : 1.0));
+        logVoltage.append(voltage);
+        logCurrent.append(current);
+        logBudget.append(budget);
+        logScale.append(outputScale);
+        hotPath.end();
+    }
+
+    private void updateLimit(Entry e, int limit, double now) {
+        // Lowering the limit is urgent, raising it again waits for the hold time so
+        // the limits do not bounce around on every current spike
+        boolean lower = limit <= e.appliedLimit - PowerConstants.LIMIT_STEP;
+        boolean raise = limit >= e.appliedLimit + PowerConstants.LIMIT_STEP
+            && now - e.lastChange > PowerConstants.LIMIT_HOLD_TIME;
+        if (!lower && !raise)
+            return;
+        e.appliedLimit = limit;
+        e.lastChange = now;
+        e.load.setCurrentLimit(limit);
+    }
+
+    public double getBatteryVoltage() {
+        return voltage;
+    }
+
+    public double getTotalCurrent() {
+        return current;
+    }
+
+    public double getCurrentBudget() {
+        return budget;
+    }
+
+    public double getOutputScale() {
+        return outputScale;
+    }
+}
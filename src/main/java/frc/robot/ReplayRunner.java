@@ -0,0 +1,81 @@
+package frc.robot;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+
+/**
+ * Re-runs the robot code against the inputs of a match log, as fast as the CPU allows.
+ *
+ * The subsystems get their replay IO layers and the controllers their logged frames, the robot
+ * state goes through the simulated DS and the clock is stepped one period per logged cycle, so
+ * the control code computes the same outputs it did on the field. Those outputs are written to
+ * a new log next to the input one, to be compared against the original or after a code change.
+ *
+ * Run with ./gradlew replay -Plog=path/to/FRC_xxx.wpilog
+ */
+public final class ReplayRunner {
+
+    /** The robot driven one loop at a time instead of by the TimedRobot notifier. */
+    private static final class ReplayRobot extends Robot {
+        void step() {
+            loopFunc();
+        }
+    }
+
+    private ReplayRunner() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayRunner <match.wpilog>");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        if (!HAL.initialize(500, 0))
+            throw new IllegalStateException("HAL initialization failed");
+
+        InputsLog inputs = InputsLog.getInstance();
+        inputs.startReplay(input.getPath());
+        String name = input.getName().replace(".wpilog", "");
+        DataLogManager.start(input.getAbsoluteFile().getParent(), "replay_" + name + ".wpilog");
+        SimHooks.pauseTiming();
+        // Replay runs as fast as it can, burning time in every disabled cycle would only slow it
+        Constants.JitWarmUp = false;
+
+        ReplayRobot robot = new ReplayRobot();
+        robot.robotInit();
+
+        int cycles = inputs.getReplayCycles();
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < cycles; ++i) {
+            inputs.setReplayCycle(i);
+            InputsLog.RobotInputs state = inputs.getReplayRobotInputs();
+            DriverStationSim.setEnabled(state.enabled);
+            DriverStationSim.setAutonomous(state.autonomous);
+            DriverStationSim.setTest(state.test);
+            DriverStationSim.notifyNewData();
+            RoboRioSim.setVInVoltage(state.batteryVoltage);
+            SimHooks.stepTiming(Constants.TimePeriod);
+
+            long t0 = System.nanoTime();
+            robot.step();
+            long dt = System.nanoTime() - t0;
+            total += dt;
+            max = Math.max(max, dt);
+        }
+
+        double seconds = total * 1e-9;
+        System.out.printf("REPLAY, %d cycles, %.2f s, mean %.3f ms, max %.3f ms, %.0fx realtime%n", cycles, seconds,
+            cycles > 0 ? seconds * 1e3 / cycles : 0, max * 1e-6, seconds > 0 ? cycles * Constants.TimePeriod / seconds : 0);
+        DataLogManager.getLog().flush();
+        DataLogManager.stop();
+        System.exit(0);
+    }
+}
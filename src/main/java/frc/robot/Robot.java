@@ -4,11 +4,24 @@
 
 package frc.robot;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
 import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.hal.FRCNetComm.tResourceType;
+import frc.robot.Constants.InputConstants;
+import frc.robot.Constants.StartupConstants;
+import frc.robot.Constants.ThreadConstants;
 
 /**
  * The methods in this class are called automatically corresponding to each mode, as described in
@@ -20,6 +33,17 @@ public class Robot extends TimedRobot {
 
   private RobotContainer m_robotContainer;
 
+  // Training boot for the class data sharing archive: run a few cycles, then exit so the JVM dumps it
+  private final boolean m_cdsTraining = Boolean.getBoolean(StartupConstants.CDS_TRAINING_PROPERTY);
+  private int m_cycles = 0;
+
+  // Period of the main loop, from one robotPeriodic() to the next
+  private LoopTiming m_loopTiming;
+
+  RobotContainer getRobotContainer() {
+    return m_robotContainer;
+  }
+
   /**
    * This function is run when the robot is first started up and should be used
    * for any
@@ -27,13 +51,47 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotInit() {
+    long initStart = System.nanoTime();
+
+    // Start the WPILog before anything creates log entries. It goes to a USB stick when one
+    // is plugged in, else to /home/lvuser/logs; entries are stamped with the FPGA clock and
+    // written to the file by the log's own thread, the main loop only appends to a buffer.
+    // Console output and NetworkTables are captured too, and the DS state and joysticks
+    // are logged by the DriverStation class.
+    DataLogManager.start();
+    DriverStation.startDataLog(DataLogManager.getLog(), true);
+    m_loopTiming = new LoopTiming("Main", Constants.TimePeriod);
+    FlightRecorder.getInstance().setLoopTiming(m_loopTiming);
+
     // Instantiate our RobotContainer. This will perform all our button bindings,
     // and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+
+    // The warm-up objects are built here, building them in the first disabled cycle overran it
+    if (Constants.JitWarmUp)
+      WarmUp.getInstance().build();
+
+    // Prints the Spark MAX configuration report once all startup configs are back
+    TieredScheduler.getInstance().add("SparkConfigReport", TieredScheduler.Tier.BACKGROUND,
+        SparkConfigurator.getInstance()::report);
        
     // Used to track usage of the Everybot code, please do not remove!
     HAL.report(tResourceType.kResourceType_Framework, 11);
+
+    // Control runs above NetworkTables, logging and the workers, see RobotThreads. Last, as
+    // threads started from here on inherit the priority
+    RobotThreads.setRealTime("Main", ThreadConstants.MAIN_PRIORITY);
+
+    // Time from JVM start to ready, to track the effect of the class data sharing archive
+    RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+    // Whether the JVM actually mapped an archive, with -Xshare:auto a missing or stale one is
+    // silently skipped
+    boolean cds = Boolean.parseBoolean(ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+        .getVMOption("UseSharedSpaces").getValue());
+    System.out.printf("STARTUP, %d ms since JVM start, robotInit %.0f ms, %d classes, CDS %s%n", runtime.getUptime(),
+        (System.nanoTime() - initStart) * 1e-6, ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(),
+        cds ? "on" : "off");
   }
 
   /**
@@ -49,19 +107,46 @@ public class Robot extends TimedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
-    CommandScheduler.getInstance().run();
+    // The controllers are sampled (or played back) first so every command sees the same frame.
+    // The cycle marker goes into the log before any input, a log replay steps on it.
+    m_loopTiming.mark();
+    long t0 = System.nanoTime();
+    FlightRecorder.getInstance().startCycle();
+    InputsLog.getInstance().startCycle();
+    DriverInputs.getInstance().update();
+    TieredScheduler.getInstance().run();
+    long cycle = System.nanoTime() - t0;
+    DriverInputs.getInstance().addCycleTime(cycle);
+    WarmUp.getInstance().addCycleTime(cycle);
+    FlightRecorder.getInstance().endCycle(cycle);
+
+    if (m_cdsTraining && ++m_cycles >= StartupConstants.CDS_TRAINING_CYCLES) {
+      System.out.println("CDS training boot done");
+      System.exit(0);
+    }
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
   @Override
-  public void disabledInit() {}
+  public void disabledInit() {
+    DriverInputs.getInstance().stopRecording();
+    LoopTiming.requestReports();
+    ThermalMonitor.getInstance().report();
+    // Saves the last seconds of the run that just ended, see FlightRecorder
+    FlightRecorder.getInstance().disabled();
+  }
 
   @Override
-  public void disabledPeriodic() {}
+  public void disabledPeriodic() {
+    // Gets the control code compiled before the match, see WarmUp
+    if (Constants.JitWarmUp)
+      WarmUp.getInstance().slice();
+  }
 
   /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
   @Override
   public void autonomousInit() {
+    WarmUp.getInstance().probe("autonomous");
     m_autonomousCommand = m_robotContainer.getAutonomousCommand();
 
     // schedule the autonomous command (example)
@@ -76,6 +161,7 @@ public class Robot extends TimedRobot {
 
   @Override
   public void teleopInit() {
+    WarmUp.getInstance().probe("teleop");
     // This makes sure that the autonomous stops running when
     // teleop starts running. If you want the autonomous to
     // continue until interrupted by another command, remove
@@ -84,6 +170,8 @@ public class Robot extends TimedRobot {
       m_autonomousCommand.cancel();
     }
     //m_robotContainer.teleopInit();
+    if (Constants.RecordDriverInputs)
+      DriverInputs.getInstance().startRecording();
   }
 
   /** This function is called periodically during operator control. */
@@ -102,7 +190,22 @@ public class Robot extends TimedRobot {
 
   /** This function is called once when the robot is first started up. */
   @Override
-  public void simulationInit() {}
+  public void simulationInit() {
+    // Replays a recorded driver in teleop, e.g. to profile the loop headless:
+    // FRC_INPUT_REPLAY=inputs-xxx.inputs ./gradlew simulateJava
+    String replay = System.getenv(InputConstants.REPLAY_ENV);
+    if (replay == null)
+      return;
+    try {
+      DriverInputs inputs = DriverInputs.getInstance();
+      inputs.playbackCommand(DriverInputs.read(new File(replay))).schedule();
+      DriverStationSim.setAutonomous(false);
+      DriverStationSim.setEnabled(true);
+      DriverStationSim.notifyNewData();
+    } catch (IOException e) {
+      System.out.println("Replay " + replay + " not loaded: " + e.getMessage());
+    }
+  }
 
   /** This function is called periodically whilst in simulation. */
   @Override
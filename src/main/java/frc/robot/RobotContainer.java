@@ -6,30 +6,59 @@ package frc.robot;
 
 import frc.robot.Constants.ArmConstants;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.InputConstants;
 import frc.robot.Constants.OperatorConstants;
+import frc.robot.Constants.PowerConstants;
+import frc.robot.Constants.RollerConstants;
 import frc.robot.Constants.ShooterConstants;
+import frc.robot.autos.AutoRoutineLoader;
 import frc.robot.autos.DriveForwardAuto;
 import frc.robot.autos.SimpleCoralAuto;
+import frc.robot.autos.TrajectoryAutos;
 import frc.robot.commands.AlgieInCommand;
 import frc.robot.commands.AlgieOutCommand;
 import frc.robot.commands.AlgieShootCommand;
 import frc.robot.commands.ArmDownCommand;
+import frc.robot.commands.ArmHoldCommand;
+import frc.robot.commands.ArmHomeCommand;
+import frc.robot.commands.ArmMidCommand;
 import frc.robot.commands.ArmUpCommand;
 import frc.robot.commands.ClimberDownCommand;
 import frc.robot.commands.ClimberUpCommand;
 import frc.robot.commands.CoralOutCommand;
 import frc.robot.commands.CoralStackCommand;
 import frc.robot.commands.DriveCommand;
+import frc.robot.subsystems.ArmIOReplay;
+import frc.robot.subsystems.ArmIOSim;
+import frc.robot.subsystems.ArmIOSparkMax;
 import frc.robot.subsystems.ArmSubsystem;
+import frc.robot.subsystems.ClimberIOReplay;
+import frc.robot.subsystems.ClimberIOSim;
+import frc.robot.subsystems.ClimberIOSparkMax;
 import frc.robot.subsystems.ClimberSubsystem;
+import frc.robot.subsystems.DriveIOReplay;
+import frc.robot.subsystems.DriveIOSim;
+import frc.robot.subsystems.DriveIOSparkMax;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.RollerIOReplay;
+import frc.robot.subsystems.RollerIOSim;
+import frc.robot.subsystems.RollerIOSparkMax;
 import frc.robot.subsystems.RollerSubsystem;
+import frc.robot.subsystems.ShooterIOReplay;
+import frc.robot.subsystems.ShooterIOSim;
+import frc.robot.subsystems.ShooterIOSparkMax;
 import frc.robot.subsystems.ShooterSubsystem;
 import frc.robot.Sensitivity;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Supplier;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
-import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 
 /**
@@ -41,13 +70,13 @@ import edu.wpi.first.wpilibj2.command.button.Trigger;
 public class RobotContainer {
 
   // The robot's subsystems and commands are defined here...
-  // Replace with CommandPS4Controller or CommandJoystick if needed
-  private final CommandXboxController m_driverController =
-      new CommandXboxController(OperatorConstants.DRIVER_CONTROLLER_PORT);
+  // Controllers are read through DriverInputs so a driver can be recorded and played back
+  private final DriverInputs.Controller m_driverController =
+      DriverInputs.getInstance().controller(OperatorConstants.DRIVER_CONTROLLER_PORT);
   // You can remove this if you wish to have a single driver, note that you
   // may have to change the binding for left bumper.
-  private final CommandXboxController m_operatorController = 
-      new CommandXboxController(OperatorConstants.OPERATOR_CONTROLLER_PORT);
+  private final DriverInputs.Controller m_operatorController = 
+      DriverInputs.getInstance().controller(OperatorConstants.OPERATOR_CONTROLLER_PORT);
 
     private final Sensitivity sensitivityPos = 
       new Sensitivity(OperatorConstants.Threshold, OperatorConstants.CuspX, OperatorConstants.LinCoef, OperatorConstants.SpeedLimitX);
@@ -70,11 +99,12 @@ public class RobotContainer {
   private int shootStartTime = ShooterConstants.ShootStartTime;
   private int shootEndTime = ShooterConstants.ShootFinishTime;
 
-  public final RollerSubsystem m_roller = new RollerSubsystem();
-  public final ShooterSubsystem m_shooter = new ShooterSubsystem();
-  public final ArmSubsystem m_arm = new ArmSubsystem();
-  public final DriveSubsystem m_drive = new DriveSubsystem();
-  public final ClimberSubsystem m_climber = new ClimberSubsystem();
+  public final RollerSubsystem m_roller = new RollerSubsystem(io(RollerIOSparkMax::new, RollerIOSim::new, RollerIOReplay::new));
+  public final ShooterSubsystem m_shooter = new ShooterSubsystem(io(ShooterIOSparkMax::new, ShooterIOSim::new, ShooterIOReplay::new));
+  public final ArmSubsystem m_arm = new ArmSubsystem(io(ArmIOSparkMax::new, ArmIOSim::new, ArmIOReplay::new));
+  public final DriveSubsystem m_drive = new DriveSubsystem(io(DriveIOSparkMax::new, DriveIOSim::new, DriveIOReplay::new));
+  public final ClimberSubsystem m_climber = new ClimberSubsystem(io(ClimberIOSparkMax::new, ClimberIOSim::new, ClimberIOReplay::new));
+  public final PowerManager m_power = new PowerManager();
 
   public final AlgieShootCommand shootCommandA;
   public final AlgieShootCommand shootCommandB;
@@ -84,6 +114,17 @@ public class RobotContainer {
 
  // public final SimpleCoralAuto m_simpleCoralAuto = new SimpleCoralAuto(m_drive, m_roller, m_arm);
   public final DriveForwardAuto m_driveForwardAuto = new DriveForwardAuto(m_drive);
+  public final Command m_coralAlgaeAuto = TrajectoryAutos.coralAndAlgae(m_drive, m_arm, m_roller, m_shooter);
+
+  /**
+   * Picks the IO layer of a subsystem: the logged inputs when replaying a match log, the
+   * hardware on the robot and the physics simulation on the desktop.
+   */
+  private static <T> T io(Supplier<T> real, Supplier<T> sim, Supplier<T> replay) {
+    if (InputsLog.getInstance().isReplay())
+      return replay.get();
+    return RobotBase.isReal() ? real.get() : sim.get();
+  }
 
   /** The container for the robot. Contains subsystems, OI devices, and commands. */
   public RobotContainer() {
@@ -93,6 +134,20 @@ public class RobotContainer {
     shootCommandX = new AlgieShootCommand(m_shooter, m_roller, 3);
     armDownCmd = new ArmDownCommand(m_arm);
 
+    // Each mechanism is derated by its own motor temperature before the controllers would cut it out
+    ThermalMonitor thermal = ThermalMonitor.getInstance();
+    thermal.add("Drive", m_drive, 4, DriveConstants.DERATE_START, DriveConstants.TEMPERATURE_LIMIT, DriveConstants.DERATE_FLOOR);
+    thermal.add("Arm", m_arm, 2, ArmConstants.DERATE_START, ArmConstants.TEMPERATURE_LIMIT, ArmConstants.DERATE_FLOOR);
+    thermal.add("Shooter", m_shooter, 3, ShooterConstants.DERATE_START, ShooterConstants.TEMPERATURE_LIMIT, ShooterConstants.DERATE_FLOOR);
+    thermal.add("Roller", m_roller, 2, RollerConstants.DERATE_START, RollerConstants.TEMPERATURE_LIMIT, RollerConstants.DERATE_FLOOR);
+
+    // Battery budget is shared in this order: drive first, then arm, shooter and roller.
+    // Only the mechanisms are capped when the voltage sags, the driver keeps full control.
+    m_power.register("Drive", m_drive, 4, DriveConstants.DRIVE_MOTOR_CURRENT_LIMIT, PowerConstants.DRIVE_MIN_CURRENT, false);
+    m_power.register("Arm", m_arm, 2, ArmConstants.ARM_MOTOR_CURRENT_LIMIT, PowerConstants.ARM_MIN_CURRENT, true);
+    m_power.register("Shooter", m_shooter, 3, ShooterConstants.SHOOT_MOTOR_CURRENT_LIMIT, PowerConstants.SHOOTER_MIN_CURRENT, true);
+    m_power.register("Roller", m_roller, 2, RollerConstants.ROLLER_MOTOR_CURRENT_LIMIT, PowerConstants.ROLLER_MIN_CURRENT, true);
+
     // Set up command bindings
     configureBindings();
 
@@ -101,6 +156,10 @@ public class RobotContainer {
     // autoChooser.addOption
     //m_chooser.setDefaultOption("Coral Auto", m_simpleCoralAuto);
     m_chooser.setDefaultOption("Auto Drive", m_driveForwardAuto);
+    m_chooser.addOption("Coral + Algae", m_coralAlgaeAuto);
+    loadAutoRoutines();
+    loadInputReplays();
+    SmartDashboard.putData("Auto Chooser", m_chooser);
 
     putParams();
   }
@@ -110,7 +169,7 @@ public class RobotContainer {
    * {@link Trigger#Trigger(java.util.function.BooleanSupplier)} constructor with an arbitrary
    * predicate, or via the named factories in {@link
    * edu.wpi.first.wpilibj2.command.button.CommandGenericHID}'s subclasses for {@link
-   * CommandXboxController Xbox}/{@link edu.wpi.first.wpilibj2.command.button.CommandPS4Controller
+   * edu.wpi.first.wpilibj2.command.button.CommandXboxController Xbox}/{@link edu.wpi.first.wpilibj2.command.button.CommandPS4Controller
    * PS4} controllers or {@link edu.wpi.first.wpilibj2.command.button.CommandJoystick Flight
    * joysticks}.
    */
@@ -128,6 +187,9 @@ public class RobotContainer {
         () -> sensitivityRot.transfer(m_driverController.getRightX()),
         () -> false));
 
+    // The arm stays at the setpoint of its last move, see ArmHoldCommand
+    m_arm.setDefaultCommand(new ArmHoldCommand(m_arm));
+
 //    if (true) return;
     /**
      * Holding the left bumper (or whatever button you assign) will multiply the speed
@@ -153,17 +215,17 @@ public class RobotContainer {
     m_operatorController.rightTrigger(.2).whileTrue(new AlgieOutCommand(m_roller, m_shooter));
 
     /**
-     * The arm will be passively held up or down after this is used,
-     * make sure not to run the arm too long or it may get upset!
+     * After each move the arm is held at its new setpoint by its default command,
+     * ArmHoldCommand, with gravity feedforward once homed.
      */
-    m_operatorController.leftBumper().onTrue(new ArmUpCommand(m_arm));
-    m_operatorController.leftTrigger(.2).onTrue(armDownCmd);
+    // The first move up homes the arm, so the hold knows its angle from then on
+    m_operatorController.leftBumper().onTrue(armMove(new ArmUpCommand(m_arm)));
+    m_operatorController.leftTrigger(.2).onTrue(armDown());
     // m_operatorController.leftBumper().whileTrue(new ArmUpCommand(m_arm));
     // m_operatorController.leftTrigger(.2).whileTrue(new ArmDownCommand(m_arm));
-    if (Constants.ArmUsePulse) {
-    }
-    else{
-    }
+    // Mid is a position move, pulse mode has no angle to go to
+    if (!Constants.ArmUsePulse)
+      m_operatorController.pov(90).onTrue(armMove(new ArmMidCommand(m_arm)));
 
     m_operatorController.a().onTrue(shootCommandA);
     m_operatorController.b().onTrue(shootCommandB);
@@ -187,6 +249,64 @@ public class RobotContainer {
       });
   }
 
+  // An arm move after homing, see ArmHomeCommand.homeThen()
+  private Command armMove(Command move) {
+    return ArmHomeCommand.homeThen(m_arm, move);
+  }
+
+  // Moving down never homes first, homing drives up, see ArmHomeCommand.withoutHoming()
+  private Command armDown() {
+    return ArmHomeCommand.withoutHoming(m_arm, new ArmDownCommand(m_arm));
+  }
+
+  /**
+   * Adds the routines described in deploy/autos to the chooser. They are all built here, at boot,
+   * so starting autonomous only schedules an existing command. Routines refer to the commands
+   * and conditions registered below by name.
+   */
+  private void loadAutoRoutines() {
+    AutoRoutineLoader loader = new AutoRoutineLoader(m_drive);
+    loader.registerCommand("DriveForward", () -> new DriveForwardAuto(m_drive));
+    loader.registerCommand("SimpleCoral", () -> new SimpleCoralAuto(m_drive, m_roller, m_arm));
+    // Arm moves are proxied, so a routine never owns the arm and its hold runs between moves
+    loader.registerCommand("ArmUp", () -> armMove(new ArmUpCommand(m_arm)).asProxy());
+    loader.registerCommand("ArmDown", () -> armDown().asProxy());
+    // Mid is a position move, pulse mode has no angle to go to
+    if (!Constants.ArmUsePulse)
+      loader.registerCommand("ArmMid", () -> armMove(new ArmMidCommand(m_arm)).asProxy());
+    loader.registerCommand("CoralOut", () -> new CoralOutCommand(m_roller));
+    loader.registerCommand("CoralStack", () -> new CoralStackCommand(m_roller));
+    loader.registerCommand("AlgieIn", () -> new AlgieInCommand(m_roller, m_shooter));
+    loader.registerCommand("AlgieOut", () -> new AlgieOutCommand(m_roller, m_shooter));
+    loader.registerCommand("Shoot1", () -> new AlgieShootCommand(m_shooter, m_roller, 0));
+    loader.registerCommand("Shoot2", () -> new AlgieShootCommand(m_shooter, m_roller, 1));
+    loader.registerCommand("Shoot3", () -> new AlgieShootCommand(m_shooter, m_roller, 2));
+    loader.registerCommand("Shoot4", () -> new AlgieShootCommand(m_shooter, m_roller, 3));
+    loader.registerCondition("ShooterAtSpeed", m_shooter::atSetPoint);
+
+    for (Map.Entry<String, Command> routine : loader.loadAll().entrySet())
+      m_chooser.addOption(routine.getKey(), routine.getValue());
+  }
+
+  /**
+   * Offers every driver recording in deploy/inputs as an auto. The replay drives the
+   * default DriveCommand and the bindings above exactly as the driver did.
+   */
+  private void loadInputReplays() {
+    File[] files = new File(Filesystem.getDeployDirectory(), InputConstants.DEPLOY_DIRECTORY)
+        .listFiles((d, name) -> name.endsWith(InputConstants.EXTENSION));
+    if (files == null)
+      return;
+    Arrays.sort(files);
+    for (File file : files) {
+      try {
+        m_chooser.addOption("Replay " + file.getName(), DriverInputs.getInstance().playbackCommand(DriverInputs.read(file)));
+      } catch (IOException e) {
+        System.out.println("Replay " + file.getName() + " skipped: " + e.getMessage());
+      }
+    }
+  }
+
   /**
    * Use this to pass the autonomous command to the main {@link Robot} class.
    *
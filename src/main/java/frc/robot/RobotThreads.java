@@ -0,0 +1,109 @@
+package frc.robot;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Threads;
+import frc.robot.Constants.ThreadConstants;
+
+/**
+ * The threads of the robot program and what runs on each.
+ *
+ * The main loop runs the scheduler and every subsystem at real-time priority, so on the roboRIO
+ * it preempts everything that is not real-time: NetworkTables, the DataLog writer, the garbage
+ * collector's helpers and the workers below. A Notifier loop started with startNotifier() runs
+ * above the main loop, being faster. Anything that may block or take a while and does not have
+ * to be done within the cycle goes to one of the workers: a single low priority thread with a
+ * bounded queue each, so a slow disk or a CAN bus full of config writes only ever delays other
+ * work of the same kind, and a flood of it is dropped instead of piling up in memory.
+ *
+ * A thread started by a real-time thread inherits its priority, so the main loop is raised at
+ * the end of robotInit(), once the workers and the Spark MAX config threads exist.
+ * Real-time priorities are only set on the robot, the simulator runs everything as is.
+ */
+public final class RobotThreads {
+
+    /** Work of one kind, run one at a time in submission order on a low priority thread. */
+    public static final class Worker {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private int dropped = 0;
+
+        Worker(String name, int capacity) {
+            this.name = name;
+            executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity), r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+            // Started now, a thread created later from the real-time main loop would inherit its priority
+            executor.prestartAllCoreThreads();
+        }
+
+        /** Queues the task, returns false and drops it if the queue is full. */
+        public boolean submit(Runnable task) {
+            try {
+                executor.execute(task);
+                return true;
+            } catch (RejectedExecutionException e) {
+                if (dropped++ == 0)
+                    System.out.println("THREADS, " + name + " queue full, dropping work");
+                return false;
+            }
+        }
+
+        /** Tasks dropped so far because the queue was full. */
+        public int getDropped() {
+            return dropped;
+        }
+    }
+
+    /** Files: input recordings, flight recorder snapshots. */
+    public static final Worker LOGGING = new Worker("Logging", ThreadConstants.LOGGING_QUEUE);
+    /** Dashboard and console reports that take more than a put. */
+    public static final Worker TELEMETRY = new Worker("Telemetry", ThreadConstants.TELEMETRY_QUEUE);
+    /** Parameter changes on running devices, e.g. CAN config writes of new current limits. */
+    public static final Worker TUNABLES = new Worker("Tunables", ThreadConstants.TUNABLES_QUEUE);
+
+    private RobotThreads() {
+    }
+
+    /** Raises the calling thread to the given real-time priority, on the robot only. */
+    public static void setRealTime(String name, int priority) {
+        if (RobotBase.isSimulation())
+            return;
+        if (!Threads.setCurrentThreadPriority(true, priority))
+            System.out.println("THREADS, " + name + " not set to real-time priority " + priority);
+    }
+
+    /**
+     * Starts a loop faster than the main one on its own Notifier thread, at a real-time
+     * priority above the main loop. Its period is measured like the main loop's.
+     *
+     * @param period in seconds
+     */
+    public static Notifier startNotifier(String name, double period, Runnable body) {
+        LoopTiming timing = new LoopTiming(name, period);
+        Notifier notifier = new Notifier(new Runnable() {
+            private boolean started = false;
+
+            @Override
+            public void run() {
+                if (!started) {
+                    setRealTime(name, ThreadConstants.NOTIFIER_PRIORITY);
+                    started = true;
+                }
+                timing.mark();
+                body.run();
+            }
+        });
+        notifier.setName(name);
+        notifier.startPeriodic(period);
+        return notifier;
+    }
+}
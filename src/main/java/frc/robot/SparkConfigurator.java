@@ -0,0 +1,252 @@
+package frc.robot;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import com.revrobotics.REVLibError;
+import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.SparkBase.PersistMode;
+import com.revrobotics.spark.SparkBase.ResetMode;
+import com.revrobotics.spark.config.SparkMaxConfig;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants.CANConstants;
+
+/**
+ * Applies Spark MAX configurations on worker threads so a slow or missing controller
+ * does not hold up robotInit(). Each subsystem submits its configs from the constructor
+ * and carries on; results are collected here and reported once all of them are back.
+ *
+ * A controller that fails every retry is reported and its subsystem keeps running with
+ * whatever parameters the controller already has.
+ *
+ * To avoid re-burning flash on every boot, a fingerprint of each config is kept in a small
+ * cache file next to the robot program, together with parameters read back from the controller
+ * after it was persisted. When both match, the config is applied without reset and without
+ * persisting. At boot a controller runs with what is in its flash, so one swapped in under the
+ * same CAN id reads back its own parameters, usually the factory defaults, and is rewritten.
+ */
+public final class SparkConfigurator {
+    private static SparkConfigurator instance;
+
+    /** Outcome of configuring one controller. */
+    public static final class Result {
+        public final String name;
+        public final int canId;
+        public final double latencyMs;
+        public final int attempts;
+        public final REVLibError error;
+        public final boolean rewritten;
+        /** What the CAN or JNI layer threw part way, null when configuring ran to the end. */
+        public final RuntimeException exception;
+
+        Result(String name, int canId, double latencyMs, int attempts, REVLibError error, boolean rewritten,
+                RuntimeException exception) {
+            this.name = name;
+            this.canId = canId;
+            this.latencyMs = latencyMs;
+            this.attempts = attempts;
+            this.error = error;
+            this.rewritten = rewritten;
+            this.exception = exception;
+        }
+
+        public boolean ok() {
+            return error == REVLibError.kOk;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final File cacheFile = new File(Filesystem.getOperatingDirectory(), CANConstants.CONFIG_CACHE_FILE);
+    private final Properties fingerprints = new Properties();
+    private final List<Result> results = new ArrayList<>();
+    private final long startTime = System.nanoTime();
+    private int submitted = 0;
+    private boolean reported = false;
+
+    public static synchronized SparkConfigurator getInstance() {
+        if (instance == null)
+            instance = new SparkConfigurator();
+        return instance;
+    }
+
+    private SparkConfigurator() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(CANConstants.CONFIG_THREADS, r -> {
+            Thread t = new Thread(r, "SparkConfig-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        loadFingerprints();
+    }
+
+    /** CRC of the flattened parameter set, which is what configure() sends to the controller. */
+    static String fingerprint(SparkMaxConfig config) {
+        CRC32 crc = new CRC32();
+        crc.update(config.flatten().getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Firmware and the persisted parameters that matter most when lost: idle mode and follower
+     * setting. The current limit is left out, PowerManager lowers it at runtime without
+     * persisting, so after a derate it would no longer match what is in flash.
+     * Takes a few CAN round trips, only called on worker threads.
+     */
+    private static String readBack(SparkMax motor) {
+        return motor.getFirmwareVersion() + "," + motor.configAccessor.getIdleMode() + "," + motor.configAccessor.getFollowerModeLeaderId() + ","
+            + motor.configAccessor.getFollowerModeInverted();
+    }
+
+    private void loadFingerprints() {
+        if (!cacheFile.exists())
+            return;
+        try (InputStream in = new FileInputStream(cacheFile)) {
+            fingerprints.load(in);
+        } catch (IOException e) {
+            System.out.println("Spark config cache unreadable, rewriting all devices: " + e.getMessage());
+            fingerprints.clear();
+        }
+    }
+
+    private void saveFingerprints() {
+        try (OutputStream out = new FileOutputStream(cacheFile)) {
+            synchronized (fingerprints) {
+                fingerprints.store(out, "Spark MAX config fingerprints by CAN id");
+            }
+        } catch (IOException e) {
+            System.out.println("Spark config cache not saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Queues a configuration for the motor and returns immediately. The config is copied,
+     * so the caller may keep modifying it for the next motor (e.g. adding follow()).
+     *
+     * The motor's faults are watched by the flight recorder from now on.
+     *
+     * Configs are applied on worker threads, so the motor's CAN timeout can be long, e.g. 250 ms,
+     * without blocking robot operation. Code which sets or gets parameters during operation may
+     * need a shorter timeout.
+     *
+     * @return future completed with true when the controller accepted the config
+     */
+    public CompletableFuture<Boolean> configure(String name, SparkMax motor, SparkMaxConfig config) {
+        FlightRecorder.getInstance().watch(name.replace(" ", ""), motor);
+        SparkMaxConfig snapshot = new SparkMaxConfig();
+        snapshot.apply(config);
+        synchronized (this) {
+            ++submitted;
+        }
+        return CompletableFuture.supplyAsync(() -> apply(name, motor, snapshot), executor);
+    }
+
+    // Whatever happens, a result is recorded, so isDone() and the report are not held up for good
+    private boolean apply(String name, SparkMax motor, SparkMaxConfig config) {
+        long t0 = System.nanoTime();
+        Result result;
+        try {
+            result = write(name, motor, config, t0);
+        } catch (RuntimeException e) {
+            result = new Result(name, motor.getDeviceId(), (System.nanoTime() - t0) * 1e-6, 0, REVLibError.kUnknown,
+                false, e);
+        }
+        synchronized (this) {
+            results.add(result);
+        }
+        return result.ok();
+    }
+
+    private Result write(String name, SparkMax motor, SparkMaxConfig config, long t0) {
+        String key = Integer.toString(motor.getDeviceId());
+        String print = fingerprint(config);
+        // Unchanged configs are still applied so the running parameters are right,
+        // just without the reset and flash write
+        boolean rewrite = !(print + "/" + readBack(motor)).equals(fingerprints.getProperty(key));
+        ResetMode resetMode = rewrite ? ResetMode.kResetSafeParameters : ResetMode.kNoResetSafeParameters;
+        PersistMode persistMode = rewrite ? PersistMode.kPersistParameters : PersistMode.kNoPersistParameters;
+
+        REVLibError error = REVLibError.kUnknown;
+        int attempts = 0;
+        while (attempts < CANConstants.CONFIG_RETRIES && error != REVLibError.kOk) {
+            ++attempts;
+            error = motor.configure(config, resetMode, persistMode);
+        }
+        if (rewrite) {
+            synchronized (fingerprints) {
+                if (error == REVLibError.kOk)
+                    fingerprints.setProperty(key, print + "/" + readBack(motor));
+                else
+                    fingerprints.remove(key);
+            }
+        }
+        return new Result(name, motor.getDeviceId(), (System.nanoTime() - t0) * 1e-6, attempts, error, rewrite, null);
+    }
+
+    /**
+     * Changes the smart current limit of a running controller. The change is neither
+     * persisted nor does it reset other parameters, and the CAN write happens on the tunables
+     * thread, behind any earlier changes.
+     */
+    public void setCurrentLimit(SparkMax motor, int amps) {
+        SparkMaxConfig config = new SparkMaxConfig();
+        config.smartCurrentLimit(amps);
+        RobotThreads.TUNABLES.submit(
+            () -> motor.configure(config, ResetMode.kNoResetSafeParameters, PersistMode.kNoPersistParameters));
+    }
+
+    public synchronized boolean isDone() {
+        return results.size() == submitted;
+    }
+
+    /** Returns true if the controller was configured successfully, false if it failed or is still pending. */
+    public synchronized boolean isConfigured(int canId) {
+        for (Result r : results)
+            if (r.canId == canId)
+                return r.ok();
+        return false;
+    }
+
+    /**
+     * Prints the per-device configuration report once every queued config has finished.
+     * Cheap to call every cycle; does nothing until then and nothing after the first report.
+     */
+    public void report() {
+        List<Result> done;
+        synchronized (this) {
+            if (reported || results.size() < submitted)
+                return;
+            reported = true;
+            done = new ArrayList<>(results);
+        }
+        int failed = 0;
+        int rewritten = 0;
+        double total = (System.nanoTime() - startTime) * 1e-6;
+        for (Result r : done) {
+            System.out.printf("CFG, %s, %d, %.1f, %d, %s, %s%n", r.name, r.canId, r.latencyMs, r.attempts,
+                r.exception != null ? r.exception : r.error, r.rewritten ? "persisted" : "unchanged");
+            if (!r.ok())
+                ++failed;
+            if (r.rewritten)
+                ++rewritten;
+        }
+        System.out.printf("Spark config: %d devices, %d rewritten, %d failed, %.1f ms%n", done.size(), rewritten, failed, total);
+        if (rewritten > 0)
+            executor.execute(this::saveFingerprints);
+        SmartDashboard.putString("Spark Config", (done.size() - failed) + "/" + done.size() + " ok");
+    }
+}
@@ -0,0 +1,195 @@
+package frc.robot;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StructPublisher;
+import edu.wpi.first.util.struct.Struct;
+import frc.robot.Constants.TelemetryConstants;
+
+/**
+ * Dashboard values, one NetworkTables topic per subsystem instead of one per value.
+ *
+ * A subsystem describes its values once as a {@link Group} of signals. All signals of a group
+ * are packed into a single struct, published under /Telemetry/&lt;group&gt; with a schema named
+ * &lt;group&gt;Telemetry, which AdvantageScope and the dashboards unpack by field name.
+ *
+ * Every cycle each signal is sampled. A signal is sent again only when it has moved by more
+ * than its deadband since it was last sent, and no more often than once every decimation
+ * cycles. When no signal of a group is due, the group is not published at all. All groups are
+ * published together at the end of the cycle, followed by a single flush from the telemetry
+ * thread. Nothing is published in a cycle after an overrun.
+ */
+public final class Telemetry {
+    private static Telemetry instance;
+
+    /** The values of a group in schema order. */
+    public static final class Frame {
+        final double[] values;
+
+        Frame(int size) {
+            values = new double[size];
+        }
+    }
+
+    // A struct of doubles, one per signal of a group
+    private static final class FrameStruct implements Struct<Frame> {
+        private final String typeName;
+        private final String schema;
+        private final int fields;
+
+        FrameStruct(String typeName, List<String> names) {
+            this.typeName = typeName;
+            this.fields = names.size();
+            StringBuilder s = new StringBuilder();
+            for (String name : names)
+                s.append("double ").append(name).append(';');
+            schema = s.toString();
+        }
+
+        @Override public Class<Frame> getTypeClass() {
+            return Frame.class;
+        }
+
+        @Override public String getTypeName() {
+            return typeName;
+        }
+
+        @Override public int getSize() {
+            return fields * kSizeDouble;
+        }
+
+        @Override public String getSchema() {
+            return schema;
+        }
+
+        @Override public Frame unpack(ByteBuffer bb) {
+            Frame f = new Frame(fields);
+            for (int i = 0; i < fields; ++i)
+                f.values[i] = bb.getDouble();
+            return f;
+        }
+
+        @Override public void pack(ByteBuffer bb, Frame value) {
+            for (int i = 0; i < fields; ++i)
+                bb.putDouble(value.values[i]);
+        }
+    }
+
+    /** The dashboard values of one subsystem. Add every signal, then call start(). */
+    public final class Group {
+        private final String name;
+        private final List<String> names = new ArrayList<>();
+        private final List<DoubleSupplier> sources = new ArrayList<>();
+        private final List<Integer> decimations = new ArrayList<>();
+        private final List<Double> deadbands = new ArrayList<>();
+
+        // Filled by start()
+        private DoubleSupplier[] source;
+        private int[] decimation;
+        private double[] deadband;
+        private long[] lastSent;
+        private Frame frame;
+        private StructPublisher<Frame> publisher;
+
+        Group(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Adds a signal.
+         *
+         * @param name field name in the struct, a Java identifier
+         * @param decimation sent at most once every this many cycles
+         * @param deadband sent only after moving by more than this
+         */
+        public Group signal(String name, DoubleSupplier source, int decimation, double deadband) {
+            names.add(name);
+            sources.add(source);
+            decimations.add(decimation);
+            deadbands.add(deadband);
+            return this;
+        }
+
+        /** A signal that is sent on every change, at most once every cycle. */
+        public Group signal(String name, DoubleSupplier source) {
+            return signal(name, source, 1, 0);
+        }
+
+        /** Publishes the group from now on. */
+        public void start() {
+            int n = names.size();
+            source = sources.toArray(new DoubleSupplier[n]);
+            decimation = new int[n];
+            deadband = new double[n];
+            lastSent = new long[n];
+            for (int i = 0; i < n; ++i) {
+                decimation[i] = decimations.get(i);
+                deadband[i] = deadbands.get(i);
+                lastSent[i] = -decimation[i];
+            }
+            // Nothing sent yet, so every signal differs from it
+            frame = new Frame(n);
+            Arrays.fill(frame.values, Double.NaN);
+            publisher = NetworkTableInstance.getDefault()
+                .getStructTopic(TelemetryConstants.TABLE + "/" + name, new FrameStruct(name + "Telemetry", names))
+                .publish();
+            groups.add(this);
+            // The flight recorder keeps every cycle of them, not only what was sent
+            for (int i = 0; i < n; ++i)
+                FlightRecorder.getInstance().addSignal(name, names.get(i), source[i]);
+        }
+
+        // Returns true if the group was published
+        private boolean update(long cycle) {
+            boolean due = false;
+            for (int i = 0; i < source.length; ++i) {
+                if (cycle - lastSent[i] < decimation[i])
+                    continue;
+                double v = source[i].getAsDouble();
+                if (Math.abs(v - frame.values[i]) <= deadband[i])
+                    continue;
+                frame.values[i] = v;
+                lastSent[i] = cycle;
+                due = true;
+            }
+            if (due)
+                publisher.set(frame);
+            return due;
+        }
+    }
+
+    private final List<Group> groups = new ArrayList<>();
+    private final Runnable flush = () -> NetworkTableInstance.getDefault().flush();
+    private long cycle = 0;
+
+    public static synchronized Telemetry getInstance() {
+        if (instance == null)
+            instance = new Telemetry();
+        return instance;
+    }
+
+    private Telemetry() {
+        TieredScheduler.getInstance().add("Telemetry", TieredScheduler.Tier.CRITICAL, this::update);
+    }
+
+    /** Starts describing the values of a subsystem. */
+    public Group group(String name) {
+        return new Group(name);
+    }
+
+    private void update() {
+        ++cycle;
+        if (TieredScheduler.getInstance().isOverrun())
+            return;
+        boolean published = false;
+        for (int i = 0; i < groups.size(); ++i)
+            published |= groups.get(i).update(cycle);
+        if (published)
+            RobotThreads.TELEMETRY.submit(flush);
+    }
+}
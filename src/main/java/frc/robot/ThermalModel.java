@@ -0,0 +1,98 @@
+package frc.robot;
+
+import frc.robot.Constants.ThermalConstants;
+
+/**
+ * Winding temperature of the NEOs of one mechanism, estimated from their current, how long
+ * until they reach their limit, and how much to derate them.
+ *
+ * The motor is one lump of copper and iron: the current heats it by I^2 R and it cools towards
+ * the ambient through ThermalConstants.NEO_THERMAL_RESISTANCE. The temperature reported by the
+ * controllers lags the windings, so it only ever raises the estimate, e.g. after a reboot with
+ * a motor still hot from the last match. The motors of a mechanism share the load and one
+ * model, corrected by the hottest of them.
+ *
+ * The derate is 1 below the derate start and eases down to the floor at the limit along a
+ * smoothstep, without a kink at either end, so the driver feels the mechanism get weaker
+ * instead of cutting out. The time to the limit assumes the heat of the last
+ * ThermalConstants.POWER_FILTER_TIME seconds goes on.
+ */
+public final class ThermalModel {
+    private final double derateStart;
+    private final double limit;
+    private final double floor;
+    private double temperature = ThermalConstants.AMBIENT;
+    private double power = 0;
+    private double energy = 0;
+    private double peak = ThermalConstants.AMBIENT;
+
+    /**
+     * @param derateStart winding temperature in C where the output starts to be scaled down
+     * @param limit winding temperature in C where the output is scaled down to the floor
+     * @param floor scale of the output at and above the limit
+     */
+    public ThermalModel(double derateStart, double limit, double floor) {
+        this.derateStart = derateStart;
+        this.limit = limit;
+        this.floor = floor;
+    }
+
+    /**
+     * Advances the estimate.
+     *
+     * @param current of one motor, in A
+     * @param measured hottest temperature reported by the controllers in C, 0 if there is none
+     * @param dt since the last update, in seconds
+     */
+    public void update(double current, double measured, double dt) {
+        double heat = current * current * ThermalConstants.NEO_RESISTANCE;
+        double cooling = (temperature - ThermalConstants.AMBIENT) / ThermalConstants.NEO_THERMAL_RESISTANCE;
+        temperature += (heat - cooling) * dt / ThermalConstants.NEO_HEAT_CAPACITY;
+        temperature = Math.max(temperature, measured);
+        power += (heat - power) * Math.min(1, dt / ThermalConstants.POWER_FILTER_TIME);
+        energy += heat * dt;
+        peak = Math.max(peak, temperature);
+    }
+
+    /** Estimated winding temperature, in C. */
+    public double getTemperature() {
+        return temperature;
+    }
+
+    /** Scale for the output, 1 while cool, easing down to the floor at the limit. */
+    public double getDerate() {
+        double x = Math.min(1, Math.max(0, (temperature - derateStart) / (limit - derateStart)));
+        return 1 - (1 - floor) * x * x * (3 - 2 * x);
+    }
+
+    /**
+     * Seconds until the limit at the recent heat, at most ThermalConstants.HORIZON, which also
+     * stands for never.
+     */
+    public double getTimeToLimit() {
+        if (temperature >= limit)
+            return 0;
+        // First order: it settles at the steady temperature with time constant R C
+        double steady = ThermalConstants.AMBIENT + power * ThermalConstants.NEO_THERMAL_RESISTANCE;
+        if (steady <= limit)
+            return ThermalConstants.HORIZON;
+        double tau = ThermalConstants.NEO_THERMAL_RESISTANCE * ThermalConstants.NEO_HEAT_CAPACITY;
+        return Math.min(ThermalConstants.HORIZON, tau * Math.log((steady - temperature) / (steady - limit)));
+    }
+
+    /** Heat put into the windings of one motor since the last reset, in J. */
+    public double getEnergy() {
+        return energy;
+    }
+
+    /** Highest temperature since the last reset, in C. */
+    public double getPeak() {
+        return peak;
+    }
+
+    /** Starts the heat and the peak over, e.g. for the next match. */
+    public void resetStats() {
+        energy = 0;
+        peak = temperature;
+    }
+}
@@ -0,0 +1,109 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import frc.robot.Constants.ScheduleConstants;
+import frc.robot.Constants.TelemetryConstants;
+
+/**
+ * Keeps a ThermalModel for the motors of every mechanism, so they get weaker as they heat up
+ * instead of being cut out by their controllers in the middle of a match.
+ *
+ * Each mechanism is added with its own derate policy: where derating starts, the temperature
+ * it must not pass and how weak it may get there. The models are updated from the current and
+ * temperatures the mechanisms read every cycle, so a log replay derates the same way. The power
+ * manager multiplies each mechanism's output scale by its derate.
+ *
+ * Temperature, derate and time to the limit of every mechanism are published in the Thermal
+ * telemetry group. When the robot is disabled, report() prints the heat and the peak temperature
+ * of each mechanism that ran as "THERMAL, name, heat kJ per motor, peak C, now C".
+ */
+public final class ThermalMonitor {
+    private static ThermalMonitor instance;
+
+    private static final class Mechanism {
+        final String name;
+        final PowerManager.Load load;
+        final int motors;
+        final ThermalModel model;
+
+        Mechanism(String name, PowerManager.Load load, int motors, ThermalModel model) {
+            this.name = name;
+            this.load = load;
+            this.motors = motors;
+            this.model = model;
+        }
+    }
+
+    private final List<Mechanism> mechanisms = new ArrayList<>();
+    private final double period = ScheduleConstants.NORMAL_PERIOD * Constants.TimePeriod;
+    private boolean published = false;
+
+    public static synchronized ThermalMonitor getInstance() {
+        if (instance == null)
+            instance = new ThermalMonitor();
+        return instance;
+    }
+
+    private ThermalMonitor() {
+        TieredScheduler.getInstance().add("Thermal", TieredScheduler.Tier.NORMAL, this::update);
+    }
+
+    /**
+     * Adds a mechanism. Add them all at startup, before the first cycle.
+     *
+     * @param motors number of motors sharing the load's current
+     * @param derateStart winding temperature in C where the output starts to be scaled down
+     * @param limit winding temperature in C where the output is scaled down to the floor
+     * @param floor scale of the output at and above the limit
+     */
+    public ThermalModel add(String name, PowerManager.Load load, int motors, double derateStart, double limit,
+            double floor) {
+        ThermalModel model = new ThermalModel(derateStart, limit, floor);
+        mechanisms.add(new Mechanism(name, load, motors, model));
+        return model;
+    }
+
+    /** The model of a mechanism, null if it was not added. */
+    public ThermalModel find(PowerManager.Load load) {
+        for (Mechanism m : mechanisms)
+            if (m.load == load)
+                return m.model;
+        return null;
+    }
+
+    private void update() {
+        if (!published)
+            publish();
+        for (int i = 0; i < mechanisms.size(); ++i) {
+            Mechanism m = mechanisms.get(i);
+            m.model.update(m.load.getOutputCurrent() / m.motors, m.load.getMotorTemperature(), period);
+        }
+    }
+
+    private void publish() {
+        Telemetry.Group group = Telemetry.getInstance().group("Thermal");
+        for (Mechanism m : mechanisms) {
+            String key = Character.toLowerCase(m.name.charAt(0)) + m.name.substring(1);
+            group.signal(key + "Temperature", m.model::getTemperature, TelemetryConstants.SLOW, 0.5)
+                .signal(key + "Derate", m.model::getDerate, TelemetryConstants.SLOW, 0.01)
+                .signal(key + "TimeToLimit", m.model::getTimeToLimit, TelemetryConstants.SLOW, 1);
+        }
+        group.start();
+        published = true;
+    }
+
+    /** Prints the heat and peak temperature of every mechanism that ran and starts them over. */
+    public void report() {
+        for (Mechanism m : mechanisms) {
+            ThermalModel t = m.model;
+            if (t.getEnergy() == 0)
+                continue;
+            String line = String.format("THERMAL, %s, %.1f, %.1f, %.1f", m.name, t.getEnergy() * 1e-3, t.getPeak(),
+                t.getTemperature());
+            RobotThreads.TELEMETRY.submit(() -> System.out.println(line));
+            t.resetStats();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.ScheduleConstants;
+import frc.robot.Constants.ThreadConstants;
+
+/**
+ * Runs the command scheduler and the periodic work that does not need to run every cycle.
+ *
+ * Subsystem periodic() and the commands stay on the command scheduler and run every cycle.
+ * Other work is added here with a tier:
+ * - CRITICAL runs every cycle, right after the command scheduler
+ * - NORMAL runs every ScheduleConstants.NORMAL_PERIOD cycles
+ * - BACKGROUND runs every ScheduleConstants.BACKGROUND_PERIOD cycles, e.g. dashboard values,
+ *   sensors that are only logged, reports
+ *
+ * Work of a decimated tier is spread over the cycles of its period, each task going to the
+ * cycle with the fewest tasks so far, so a cycle never has to run all of it at once. After a
+ * cycle that overran, either its own work took longer than ScheduleConstants.CYCLE_BUDGET or
+ * the loop started late, the background work due in the next cycle is shed: it waits for its
+ * next turn, and the loop gets the time back to catch up.
+ */
+public final class TieredScheduler {
+    private static TieredScheduler instance;
+
+    public enum Tier { CRITICAL, NORMAL, BACKGROUND }
+
+    private static final class Task {
+        final String name;
+        final Runnable work;
+        final int phase;
+
+        Task(String name, Runnable work, int phase) {
+            this.name = name;
+            this.work = work;
+            this.phase = phase;
+        }
+    }
+
+    private final List<Task> critical = new ArrayList<>();
+    private final List<Task> normal = new ArrayList<>();
+    private final List<Task> background = new ArrayList<>();
+    private final int[] normalLoad = new int[ScheduleConstants.NORMAL_PERIOD];
+    private final int[] backgroundLoad = new int[ScheduleConstants.BACKGROUND_PERIOD];
+
+    private long cycle = 0;
+    private long lastStart = 0;
+    private long lastNanos = 0;
+    private int shedTotal = 0;
+    private boolean overrun = false;
+
+    private final BooleanLogEntry logOverrun = new BooleanLogEntry(DataLogManager.getLog(), "/Schedule/Overrun");
+    private final IntegerLogEntry logShed = new IntegerLogEntry(DataLogManager.getLog(), "/Schedule/Shed");
+
+    public static synchronized TieredScheduler getInstance() {
+        if (instance == null)
+            instance = new TieredScheduler();
+        return instance;
+    }
+
+    private TieredScheduler() {
+    }
+
+    /** Adds periodic work. Add it once, e.g. from a subsystem constructor. */
+    public void add(String name, Tier tier, Runnable work) {
+        switch (tier) {
+            case CRITICAL:
+                critical.add(new Task(name, work, 0));
+                break;
+            case NORMAL:
+                normal.add(new Task(name, work, leastLoaded(normalLoad)));
+                break;
+            case BACKGROUND:
+                background.add(new Task(name, work, leastLoaded(backgroundLoad)));
+                break;
+        }
+    }
+
+    private static int leastLoaded(int[] load) {
+        int best = 0;
+        for (int i = 1; i < load.length; ++i)
+            if (load[i] < load[best])
+                best = i;
+        ++load[best];
+        return best;
+    }
+
+    /** Runs one cycle. Call from robotPeriodic() in place of CommandScheduler.run(). */
+    public void run() {
+        long start = System.nanoTime();
+        overrun = lastNanos > ScheduleConstants.CYCLE_BUDGET * 1e9
+            || (lastStart != 0 && start - lastStart > (Constants.TimePeriod + ThreadConstants.JITTER_LATE) * 1e9);
+        lastStart = start;
+
+        CommandScheduler.getInstance().run();
+
+        for (int i = 0; i < critical.size(); ++i)
+            critical.get(i).work.run();
+
+        int normalPhase = (int) (cycle % ScheduleConstants.NORMAL_PERIOD);
+        for (int i = 0; i < normal.size(); ++i) {
+            Task t = normal.get(i);
+            if (t.phase == normalPhase)
+                t.work.run();
+        }
+
+        int backgroundPhase = (int) (cycle % ScheduleConstants.BACKGROUND_PERIOD);
+        int shed = 0;
+        for (int i = 0; i < background.size(); ++i) {
+            Task t = background.get(i);
+            if (t.phase != backgroundPhase)
+                continue;
+            if (!overrun) {
+                t.work.run();
+                continue;
+            }
+            if (shedTotal++ == 0)
+                System.out.println("SCHEDULE, overrun, first background work shed: " + t.name);
+            ++shed;
+        }
+
+        logOverrun.append(overrun);
+        logShed.append(shed);
+        ++cycle;
+        lastNanos = System.nanoTime() - start;
+    }
+
+    /** True during a cycle that follows an overrun, when work that can wait should. */
+    public boolean isOverrun() {
+        return overrun;
+    }
+
+    /** Background tasks skipped after overruns since startup. */
+    public int getShedCount() {
+        return shedTotal;
+    }
+}
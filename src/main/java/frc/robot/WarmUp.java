@@ -0,0 +1,208 @@
+package frc.robot;
+
+import java.io.OutputStream;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DataLogWriter;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.Constants.OperatorConstants;
+import frc.robot.Constants.WarmUpConstants;
+import frc.robot.autos.TrajectoryAutos;
+import frc.robot.commands.AlgieShootCommand;
+import frc.robot.commands.ArmDownCommand;
+import frc.robot.commands.ArmUpCommand;
+import frc.robot.subsystems.ArmIO;
+import frc.robot.subsystems.ArmSubsystem;
+import frc.robot.subsystems.DriveIO;
+import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.RollerIO;
+import frc.robot.subsystems.RollerSubsystem;
+import frc.robot.subsystems.ShooterIO;
+import frc.robot.subsystems.ShooterSubsystem;
+
+/**
+ * Runs the control code while the robot sits disabled, so the JIT has compiled it before the
+ * match starts instead of during the first cycles of auto or the first shot.
+ *
+ * Subsystem periodic() already runs every cycle while disabled, what does not are the commands
+ * and the control methods they call. Each disabled cycle gives a time slice to a private set of
+ * subsystems on IO that does nothing: they are not registered with the scheduler, log to a
+ * DataLog that discards everything and publish nothing to the dashboard. The shot, the arm moves
+ * and the trajectory auto run on them from initialize() to end(), over and over, with the PID
+ * controllers and the stick sensitivity curve. Commands the auto schedules on its own are
+ * ignored by the scheduler while the robot is disabled.
+ *
+ * The code is warm once every path has run often enough and the JIT has stopped compiling for a
+ * while, shown as "JIT Warm" on the dashboard. To see what it buys, probe() measures the first
+ * cycles of auto, teleop and the first shot; run a match with Constants.JitWarmUp off and on and
+ * compare the WARMUP lines on the console.
+ */
+public final class WarmUp {
+    private static WarmUp instance;
+    private static DataLog discardLog;
+
+    private final CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+
+    // Built by build() in robotInit(), so none of it costs anything when the warm-up is off
+    private ArmSubsystem arm;
+    private DriveSubsystem drive;
+    private Command[] commands;
+    private boolean[] running;
+    private boolean[] finished;
+    private final PIDCtrl pidCtrl = new PIDCtrl(ArmConstants.kP, ArmConstants.kD, ArmConstants.kI, Constants.TimePeriod);
+    private final Sensitivity sensitivity = new Sensitivity(OperatorConstants.Threshold, OperatorConstants.CuspX,
+        OperatorConstants.LinCoef, OperatorConstants.SpeedLimitX);
+    private long iterations = 0;
+    private boolean inSlice = false;
+
+    // Readiness: the JIT has not compiled anything for a number of cycles after every path ran enough
+    private long lastCompileTime = -1;
+    private int stableCycles = 0;
+    private boolean ready = false;
+    private BooleanLogEntry logReady;
+
+    // First-cycle latency probe
+    private final Set<String> probed = new HashSet<>();
+    private final double[] probeMs = new double[WarmUpConstants.PROBE_CYCLES];
+    private String probeLabel;
+    private long probeStart;
+    private int probeCount;
+
+    public static synchronized WarmUp getInstance() {
+        if (instance == null)
+            instance = new WarmUp();
+        return instance;
+    }
+
+    private WarmUp() {
+    }
+
+    /** A log for warm-up instances, every entry appended to it is thrown away. */
+    public static synchronized DataLog discardLog() {
+        if (discardLog == null)
+            discardLog = new DataLogWriter(OutputStream.nullOutputStream());
+        return discardLog;
+    }
+
+    /**
+     * Builds the warm-up subsystems and commands. Call from robotInit() after the RobotContainer,
+     * the trajectories are loaded by then, so no disabled cycle pays for it.
+     */
+    public void build() {
+        arm = new ArmSubsystem(new ArmIO() {}, true);
+        ShooterSubsystem shooter = new ShooterSubsystem(new ShooterIO() {}, true);
+        drive = new DriveSubsystem(new DriveIO() {}, true);
+        RollerSubsystem roller = new RollerSubsystem(new RollerIO() {}, true);
+        commands = new Command[] {
+            new AlgieShootCommand(shooter, roller, 0),
+            new ArmUpCommand(arm),
+            new ArmDownCommand(arm),
+            TrajectoryAutos.coralAndAlgae(drive, arm, roller, shooter),
+        };
+        running = new boolean[commands.length];
+        finished = new boolean[commands.length];
+        logReady = new BooleanLogEntry(DataLogManager.getLog(), "/Robot/JitWarm");
+        logReady.append(false);
+        SmartDashboard.putBoolean("JIT Warm", false);
+    }
+
+    /** Runs the control code for one time slice. Call from disabledPeriodic(), after build(). */
+    public void slice() {
+        if (DriverStation.isEnabled() || commands == null)
+            return;
+
+        inSlice = true;
+        long deadline = System.nanoTime() + (long) (WarmUpConstants.SLICE_TIME * 1e9);
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < commands.length; ++i)
+                step(i);
+            double x = (iterations % 201) * 0.01 - 1;
+            drive.driveArcade(sensitivity.transfer(x), sensitivity.transfer(-x), false);
+            arm.runToPosition(iterations % 2 == 0 ? ArmConstants.AngleUp : ArmConstants.AngleDown);
+            arm.hold();
+            pidCtrl.calculateDif(x, 0, Constants.TimePeriod);
+            ++iterations;
+        }
+        // The writer keeps what is appended until a flush, which here writes it nowhere
+        discardLog().flush();
+        inSlice = false;
+
+        if (!ready)
+            checkReady();
+    }
+
+    private void step(int i) {
+        Command c = commands[i];
+        if (!running[i]) {
+            c.initialize();
+            running[i] = true;
+        }
+        c.execute();
+        if (c.isFinished()) {
+            c.end(false);
+            running[i] = false;
+            finished[i] = true;
+        }
+    }
+
+    private void checkReady() {
+        if (iterations < WarmUpConstants.TARGET_ITERATIONS)
+            return;
+        for (boolean f : finished)
+            if (!f)
+                return;
+        long compileTime = compiler.isCompilationTimeMonitoringSupported() ? compiler.getTotalCompilationTime() : 0;
+        stableCycles = compileTime == lastCompileTime ? stableCycles + 1 : 0;
+        lastCompileTime = compileTime;
+        if (stableCycles < WarmUpConstants.STABLE_CYCLES)
+            return;
+
+        ready = true;
+        logReady.append(true);
+        SmartDashboard.putBoolean("JIT Warm", true);
+        System.out.printf("WARMUP, ready after %d iterations, %d ms compiling%n", iterations, compileTime);
+    }
+
+    /** True once the control code has been compiled. Stays false while the warm-up is off. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Measures the next cycles, the first one from this call to the end of robotPeriodic().
+     * Each label is measured once per boot, the first time is the one the JIT makes slow.
+     */
+    public void probe(String label) {
+        if (inSlice || probeLabel != null || !probed.add(label))
+            return;
+        probeLabel = label;
+        probeStart = System.nanoTime();
+        probeCount = 0;
+    }
+
+    /** Adds the cost of one robot cycle to the running probe. Call at the end of robotPeriodic(). */
+    public void addCycleTime(long nanos) {
+        if (probeLabel == null)
+            return;
+        if (probeCount == 0)
+            nanos = System.nanoTime() - probeStart;
+        probeMs[probeCount++] = nanos * 1e-6;
+        if (probeCount < probeMs.length)
+            return;
+
+        StringBuilder line = new StringBuilder();
+        for (double ms : probeMs)
+            line.append(String.format(", %.2f", ms));
+        System.out.printf("WARMUP, %s, warm %s, first cycles ms%s%n", probeLabel, ready ? "yes" : "no", line);
+        probeLabel = null;
+    }
+}
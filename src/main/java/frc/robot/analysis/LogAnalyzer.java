@@ -0,0 +1,331 @@
+package frc.robot.analysis;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.Constants.ShooterConstants;
+
+/**
+ * Offline step response report for the shooter wheels and the arm, from robot logs.
+ *
+ * Reads WPILogs (the /Shooter and /Arm setpoint, velocity and position entries) and console
+ * captures with the legacy "SHT," and "ARM," lines. Each shot or arm move becomes one run:
+ * it starts with a new setpoint and ends with the next one, when the wheels are stopped or
+ * after a timeout. Every run is printed as one table row as soon as it ends, with rise time
+ * (10 to 90 %), overshoot, settling time, steady-state error and, for the shooter, the RPM dip
+ * when the algae is fed and the time to recover from it. Percentiles over all runs are
+ * printed at the end.
+ *
+ * Files are streamed record by record and only the run in progress is buffered, so a whole
+ * day of practice logs goes through in the same memory as one match.
+ *
+ * Usage: ./gradlew analyzeLogs -Plogs=logs/,riolog.txt [-Pband=0.02] [-Pdip=0.05]
+ */
+public class LogAnalyzer {
+    static final double SHOOTER_MAX_RUN = 10;  // sec
+    static final double ARM_MAX_RUN = 4;  // sec
+    static final int STOP_SAMPLES = 5;  // zero output samples that end a shot
+
+    static final String[] METRICS = {"rise ms", "overshoot %", "settle ms", "sse", "dip", "recovery ms"};
+
+    // Legacy lines give no setpoint, a shot is matched to the closest preset
+    static final double[] SHOOTER_PRESETS = {
+        ShooterConstants.SpeedUp, ShooterConstants.SpeedUp1, ShooterConstants.SpeedUp2,
+        ShooterConstants.SpeedUp3, ShooterConstants.SpeedUp4,
+        -ShooterConstants.SpeedDown1, -ShooterConstants.SpeedDown2,
+        -ShooterConstants.SpeedDown3, -ShooterConstants.SpeedDown4};
+
+    /** A run buffer and the statistics of every run it had. */
+    private static final class Mechanism {
+        final StepRun run;
+        final double maxRun;
+        final Percentiles[] stats = new Percentiles[METRICS.length];
+        int zeroOutput = 0;
+
+        // Legacy console lines only
+        double lastTime = Double.NEGATIVE_INFINITY;
+        double lastValue = 0;
+
+        Mechanism(StepRun run, double maxRun) {
+            this.run = run;
+            this.maxRun = maxRun;
+            for (int i = 0; i < stats.length; ++i)
+                stats[i] = new Percentiles();
+        }
+    }
+
+    private static final int UP_SETPOINT = 0;
+    private static final int DOWN_SETPOINT = 1;
+    private static final int UP_VELOCITY = 2;
+    private static final int DOWN_VELOCITY = 3;
+    private static final int UP_APPLIED = 4;
+    private static final int DOWN_APPLIED = 5;
+    private static final int ARM_SETPOINT = 6;
+    private static final int ARM_POSITION = 7;
+
+    private static final Map<String, Integer> ENTRIES = Map.of(
+        "/Shooter/UpSetpoint", UP_SETPOINT,
+        "/Shooter/DownSetpoint", DOWN_SETPOINT,
+        "/Shooter/UpVelocity", UP_VELOCITY,
+        "/Shooter/DownVelocity", DOWN_VELOCITY,
+        "/Shooter/UpApplied", UP_APPLIED,
+        "/Shooter/DownApplied", DOWN_APPLIED,
+        "/Arm/Setpoint", ARM_SETPOINT,
+        "/Arm/Position", ARM_POSITION);
+
+    private final double band;
+    private final double dipThreshold;
+    private final Mechanism up = new Mechanism(new StepRun("Shooter Up", "rpm", 1, true), SHOOTER_MAX_RUN);
+    private final Mechanism down = new Mechanism(new StepRun("Shooter Down", "rpm", 1, true), SHOOTER_MAX_RUN);
+    private final Mechanism arm = new Mechanism(new StepRun("Arm", "deg", 360.0 / ArmConstants.GearRatio, false), ARM_MAX_RUN);
+    private final Mechanism[] mechanisms = {up, down, arm};
+
+    public LogAnalyzer(double band, double dipThreshold) {
+        this.band = band;
+        this.dipThreshold = dipThreshold;
+    }
+
+    /** Analyzes one file, WPILog or console capture, and prints its runs. */
+    public void analyze(File file) throws IOException {
+        System.out.println();
+        System.out.println("== " + file);
+        System.out.printf("%-12s %9s %9s %8s %11s %9s %9s %9s %11s%n",
+            "run", "start s", "target", METRICS[0], METRICS[1], METRICS[2], METRICS[3], METRICS[4], METRICS[5]);
+        for (Mechanism m : mechanisms) {
+            m.lastTime = Double.NEGATIVE_INFINITY;
+            m.lastValue = 0;
+        }
+        if (file.getName().endsWith(".wpilog"))
+            readWpilog(file);
+        else
+            readConsole(file);
+        for (Mechanism m : mechanisms)
+            finish(m);
+    }
+
+    private void readWpilog(File file) throws IOException {
+        DataLogReader reader = new DataLogReader(file.getPath());
+        if (!reader.isValid())
+            throw new IOException(file + " is not a WPILog");
+
+        Map<Integer, Integer> entries = new HashMap<>();
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                Integer kind = ENTRIES.get(start.name);
+                if (kind != null && start.type.equals("double"))
+                    entries.put(start.entry, kind);
+                continue;
+            }
+            if (record.isControl())
+                continue;
+            Integer kind = entries.get(record.getEntry());
+            if (kind == null)
+                continue;
+            double t = record.getTimestamp() * 1e-6;
+            double v = record.getDouble();
+            switch (kind) {
+                case UP_SETPOINT: setpoint(up, t, v); break;
+                case DOWN_SETPOINT: setpoint(down, t, v); break;
+                case ARM_SETPOINT: setpoint(arm, t, v); break;
+                case UP_VELOCITY: sample(up, t, v); break;
+                case DOWN_VELOCITY: sample(down, t, v); break;
+                case ARM_POSITION: sample(arm, t, v); break;
+                case UP_APPLIED: output(up, v); break;
+                case DOWN_APPLIED: output(down, v); break;
+                default: break;
+            }
+        }
+    }
+
+    /**
+     * Legacy console lines, one per cycle while a command runs the mechanism:
+     * SHT, ms since start, dt, -, position, velocity, dif, -, raw control, control, applied[, appliedR]
+     * (the upper wheel line has one applied output, the lower wheel line two) and
+     * ARM, dt, -, position, velocity, -, raw control, control, applied.
+     * A shot restarts its time count, an arm move starts from a reset encoder.
+     */
+    private void readConsole(File file) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int sht = line.indexOf("SHT,");
+                int arm = line.indexOf("ARM,");
+                try {
+                    if (sht >= 0)
+                        legacyShooter(line.substring(sht).split(","));
+                    else if (arm >= 0)
+                        legacyArm(line.substring(arm).split(","));
+                } catch (NumberFormatException e) {
+                    // Truncated or interleaved console line
+                }
+            }
+        }
+    }
+
+    private void legacyShooter(String[] f) {
+        if (f.length != 11 && f.length != 12)
+            return;
+        Mechanism m = f.length == 11 ? up : down;
+        double t = Double.parseDouble(f[1].trim()) * 1e-3;
+        double vel = Double.parseDouble(f[5].trim());
+        if (!m.run.isActive() || t <= m.lastTime) {
+            finish(m);
+            m.run.begin(t, Double.NaN);
+        }
+        m.lastTime = t;
+        if (!m.run.add(t, vel))
+            finish(m);
+    }
+
+    private void legacyArm(String[] f) {
+        if (f.length != 9)
+            return;
+        Mechanism m = arm;
+        double dt = Double.parseDouble(f[1].trim()) * 1e-3;
+        double pos = Double.parseDouble(f[3].trim());
+        boolean reset = Math.abs(m.lastValue) > 0.2 * Math.abs(ArmConstants.AngleUp)
+            && Math.abs(pos) < 0.25 * Math.abs(m.lastValue);
+        double t = m.run.isActive() ? m.lastTime + dt : 0;
+        if (!m.run.isActive() || reset) {
+            finish(m);
+            t = 0;
+            m.run.begin(t, Double.NaN);
+        }
+        m.lastTime = t;
+        m.lastValue = pos;
+        if (!m.run.add(t, pos))
+            finish(m);
+    }
+
+    private void setpoint(Mechanism m, double t, double target) {
+        finish(m);
+        if (target != 0)
+            m.run.begin(t, target);
+    }
+
+    private void sample(Mechanism m, double t, double v) {
+        if (!m.run.isActive())
+            return;
+        if (!m.run.add(t, v) || t - m.run.start > m.maxRun)
+            finish(m);
+    }
+
+    // A shot ends when the wheels are stopped
+    private void output(Mechanism m, double applied) {
+        if (!m.run.isActive() || m.run.size() < 10)
+            return;
+        m.zeroOutput = Math.abs(applied) < 1e-3 ? m.zeroOutput + 1 : 0;
+        if (m.zeroOutput >= STOP_SAMPLES)
+            finish(m);
+    }
+
+    private void finish(Mechanism m) {
+        StepRun r = m.run;
+        m.zeroOutput = 0;
+        if (!r.isActive())
+            return;
+        if (Double.isNaN(r.target))
+            r.target = legacyTarget(m);
+        if (!r.analyze(band, dipThreshold))
+            return;
+
+        double[] values = {r.riseTime * 1e3, r.overshoot, r.settlingTime * 1e3, r.steadyStateError,
+            r.dip, r.recoveryTime * 1e3};
+        for (int i = 0; i < values.length; ++i)
+            m.stats[i].add(values[i]);
+        System.out.printf("%-12s %9.2f %9.1f %8s %11s %9s %9s %9s %11s%s%n", r.name, r.start, r.target * r.scale,
+            format(values[0], 0), format(values[1], 1), format(values[2], 0), format(values[3], 2),
+            format(values[4], 1), format(values[5], 0), r.isTruncated() ? " (truncated)" : "");
+    }
+
+    // The closest preset for the shooter, the direction of travel for the arm
+    private double legacyTarget(Mechanism m) {
+        double settled = m.run.tailMedian(1.0 / 3);
+        if (m == arm)
+            return settled >= 0 ? ArmConstants.AngleUp : ArmConstants.AngleDown;
+        double best = SHOOTER_PRESETS[0];
+        for (double preset : SHOOTER_PRESETS)
+            if (Math.abs(Math.abs(settled) - preset) < Math.abs(Math.abs(settled) - best))
+                best = preset;
+        return Math.copySign(best, settled);
+    }
+
+    /** Prints the percentiles of every metric over all runs analyzed so far. */
+    public void printSummary() {
+        for (Mechanism m : mechanisms) {
+            if (m.run.runs == 0)
+                continue;
+            System.out.println();
+            System.out.printf("== %s, %d runs (sse and dip in %s)%n", m.run.name, m.run.runs, m.run.unit);
+            System.out.printf("%-12s %6s %9s %9s %9s %9s%n", "metric", "n", "p50", "p90", "p99", "max");
+            for (int i = 0; i < METRICS.length; ++i) {
+                Percentiles p = m.stats[i];
+                if (p.count() == 0)
+                    continue;
+                System.out.printf("%-12s %6d %9.2f %9.2f %9.2f %9.2f%n", METRICS[i], p.count(),
+                    p.get(50), p.get(90), p.get(99), p.max());
+            }
+        }
+    }
+
+    private static String format(double v, int decimals) {
+        return Double.isNaN(v) ? "-" : String.format("%." + decimals + "f", v);
+    }
+
+    private static List<File> expand(String arg) throws IOException {
+        List<File> files = new ArrayList<>();
+        File f = new File(arg);
+        if (!f.isDirectory()) {
+            files.add(f);
+            return files;
+        }
+        try (Stream<Path> walk = Files.walk(f.toPath())) {
+            walk.filter(Files::isRegularFile)
+                .filter(p -> p.toString().matches(".*\\.(wpilog|txt|log|csv)$"))
+                .sorted()
+                .forEach(p -> files.add(p.toFile()));
+        }
+        return files;
+    }
+
+    public static void main(String... args) throws IOException {
+        double band = 0.02;
+        double dip = 0.05;
+        List<File> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--band="))
+                band = Double.parseDouble(arg.substring(7));
+            else if (arg.startsWith("--dip="))
+                dip = Double.parseDouble(arg.substring(6));
+            else if (!arg.isBlank())
+                files.addAll(expand(arg));
+        }
+        if (files.isEmpty()) {
+            System.out.println("Usage: LogAnalyzer [--band=0.02] [--dip=0.05] <log or directory>...");
+            System.exit(1);
+        }
+
+        LogAnalyzer analyzer = new LogAnalyzer(band, dip);
+        for (File file : files) {
+            try {
+                analyzer.analyze(file);
+            } catch (IOException e) {
+                System.out.println("Skipped " + file + ": " + e.getMessage());
+            }
+        }
+        analyzer.printSummary();
+    }
+}
@@ -0,0 +1,51 @@
+package frc.robot.analysis;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Percentiles of one metric over every run. Exact up to CAPACITY runs; past that a uniform
+ * reservoir sample is kept, so a day of practice logs still fits in a fixed array.
+ */
+final class Percentiles {
+    static final int CAPACITY = 4096;
+
+    private final double[] samples = new double[CAPACITY];
+    private final Random random = new Random(1);
+    private int kept = 0;
+    private long seen = 0;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /** Adds a value, NaN (metric not reached in that run) is skipped. */
+    void add(double v) {
+        if (Double.isNaN(v))
+            return;
+        ++seen;
+        max = Math.max(max, v);
+        if (kept < CAPACITY) {
+            samples[kept++] = v;
+        } else {
+            long slot = (long) (random.nextDouble() * seen);
+            if (slot < CAPACITY)
+                samples[(int) slot] = v;
+        }
+    }
+
+    long count() {
+        return seen;
+    }
+
+    double max() {
+        return max;
+    }
+
+    /** The p-th percentile, p from 0 to 100, of the values added so far. */
+    double get(double p) {
+        if (kept == 0)
+            return Double.NaN;
+        double[] sorted = Arrays.copyOf(samples, kept);
+        Arrays.sort(sorted);
+        int i = (int) Math.ceil(p / 100 * kept) - 1;
+        return sorted[Math.max(0, Math.min(kept - 1, i))];
+    }
+}
@@ -0,0 +1,169 @@
+package frc.robot.analysis;
+
+import java.util.Arrays;
+
+/**
+ * One shot or arm move: the samples from the moment a new setpoint is given until the next
+ * one, or until the mechanism stops. The buffer is allocated once and reused for every run,
+ * so memory does not grow with the size of the log.
+ *
+ * All metrics are taken relative to the step from the first sample to the target, so they
+ * read the same for an arm moving down or a wheel spinning backwards.
+ */
+final class StepRun {
+    static final int CAPACITY = 3000;  // 60 s at 20 ms
+
+    final String name;
+    final String unit;
+    final double scale;  // log units to reported units
+    final boolean feed;  // look for the RPM dip when the game piece is fed
+
+    private final double[] time = new double[CAPACITY];
+    private final double[] value = new double[CAPACITY];
+    private int count = 0;
+    private boolean active = false;
+    private boolean truncated = false;
+
+    double start;
+    double target;
+    int runs = 0;
+
+    // Results of the last analyze(), NaN where the response never got there
+    double riseTime;
+    double overshoot;
+    double settlingTime;
+    double steadyStateError;
+    double dip;
+    double recoveryTime;
+
+    StepRun(String name, String unit, double scale, boolean feed) {
+        this.name = name;
+        this.unit = unit;
+        this.scale = scale;
+        this.feed = feed;
+    }
+
+    void begin(double t, double target) {
+        this.start = t;
+        this.target = target;
+        count = 0;
+        truncated = false;
+        active = true;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    int size() {
+        return count;
+    }
+
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    double duration() {
+        return count > 0 ? time[count - 1] - start : 0;
+    }
+
+    /** Adds a sample, returns false once the buffer is full. */
+    boolean add(double t, double v) {
+        if (count == CAPACITY) {
+            truncated = true;
+            return false;
+        }
+        time[count] = t;
+        value[count] = v;
+        ++count;
+        return true;
+    }
+
+    /** Median of the samples from the given fraction of the run to its end. */
+    double tailMedian(double fromFraction) {
+        int from = (int) (count * fromFraction);
+        double[] tail = Arrays.copyOfRange(value, from, count);
+        Arrays.sort(tail);
+        return tail.length > 0 ? tail[tail.length / 2] : 0;
+    }
+
+    /**
+     * Computes the metrics and closes the run. Returns false if there is nothing to analyze:
+     * too few samples or no step to speak of.
+     *
+     * @param band settled when within this fraction of the step of the target
+     * @param dipThreshold a feed starts when a settled response drops this fraction of the step
+     */
+    boolean analyze(double band, double dipThreshold) {
+        active = false;
+        if (count < 3)
+            return false;
+        double y0 = value[0];
+        double step = Math.abs(target - y0);
+        double sign = Math.signum(target - y0);
+        if (step < band * Math.abs(target) || step == 0)
+            return false;
+        ++runs;
+
+        riseTime = overshoot = settlingTime = steadyStateError = dip = recoveryTime = Double.NaN;
+        double tol = band * step;
+
+        // The feed, if any, ends the step response part of the run
+        int feedIndex = count;
+        int firstSettled = -1;
+        for (int i = 0; i < count; ++i) {
+            double e = sign * (value[i] - y0);
+            if (firstSettled < 0 && Math.abs(e - step) <= tol)
+                firstSettled = i;
+            if (feed && firstSettled >= 0 && step - e > dipThreshold * step) {
+                feedIndex = i;
+                break;
+            }
+        }
+
+        double t10 = Double.NaN;
+        double t90 = Double.NaN;
+        double peak = Double.NEGATIVE_INFINITY;
+        int lastOut = -1;
+        for (int i = 0; i < feedIndex; ++i) {
+            double e = sign * (value[i] - y0);
+            if (Double.isNaN(t10) && e >= 0.1 * step)
+                t10 = time[i];
+            if (Double.isNaN(t90) && e >= 0.9 * step)
+                t90 = time[i];
+            peak = Math.max(peak, e);
+            if (Math.abs(e - step) > tol)
+                lastOut = i;
+        }
+        riseTime = t90 - t10;
+        overshoot = Math.max(0, peak - step) / step * 100;
+        if (lastOut + 1 < feedIndex) {
+            settlingTime = time[lastOut + 1] - start;
+
+            // Mean error over the last quarter second before the feed or the end
+            double windowStart = time[feedIndex - 1] - 0.25;
+            double sum = 0;
+            int n = 0;
+            for (int i = feedIndex - 1; i > lastOut && time[i] >= windowStart; --i) {
+                sum += sign * (target - value[i]);
+                ++n;
+            }
+            steadyStateError = sum / n * scale;
+        }
+
+        if (feedIndex < count) {
+            double low = Double.POSITIVE_INFINITY;
+            for (int i = feedIndex; i < count; ++i) {
+                double e = sign * (value[i] - y0);
+                if (e < low) {
+                    low = e;
+                } else if (Math.abs(e - step) <= tol) {
+                    recoveryTime = time[i] - time[feedIndex];
+                    break;
+                }
+            }
+            dip = (step - low) * scale;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,174 @@
+package frc.robot.autos;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.ScheduleCommand;
+import frc.robot.autos.TrajectoryCache.PathSpec;
+import frc.robot.subsystems.DriveSubsystem;
+
+/**
+ * Builds autonomous routines from JSON files in the deploy/autos directory, so a new auto
+ * only needs a deploy, not a code change. Every routine is parsed and its command built once
+ * at boot, while the robot is disabled; autonomousInit() only schedules the prebuilt command.
+ *
+ * A routine file looks like:
+ * <pre>
+ * {
+ *   "name": "Coral + Algae",
+ *   "command": { "type": "sequence", "commands": [
+ *     { "type": "deadline", "deadline": { "type": "path", "path": "StartToReef" },
+ *       "commands": [ { "type": "sequence", "commands": [
+ *         { "type": "wait", "seconds": 0.4 },
+ *         { "type": "fork", "command": { "type": "named", "name": "ArmUp" } } ] } ] },
+ *     { "type": "named", "name": "CoralOut", "timeout": 1.0 }
+ *   ] }
+ * }
+ * </pre>
+ *
+ * Node types: sequence, parallel, race and deadline compose other nodes; wait (seconds),
+ * waitUntil (a registered condition), named (a registered command, optional timeout),
+ * path (a path from TrajectoryAutos.PATHS, the first one resets the pose) and fork
+ * (schedules its command and moves on without waiting for it).
+ */
+public class AutoRoutineLoader {
+    private final DriveSubsystem m_drive;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Supplier<Command>> commands = new HashMap<>();
+    private final Map<String, BooleanSupplier> conditions = new HashMap<>();
+    private final Map<String, PathSpec> paths = new HashMap<>();
+
+    // Set while building one routine, the first path of a routine resets the pose estimate
+    private boolean firstPath;
+
+    public AutoRoutineLoader(DriveSubsystem drive) {
+        m_drive = drive;
+        for (PathSpec spec : TrajectoryAutos.PATHS)
+            paths.put(spec.name, spec);
+    }
+
+    /** Makes a command available to routines by name. The factory is called once per use. */
+    public void registerCommand(String name, Supplier<Command> factory) {
+        commands.put(name, factory);
+    }
+
+    /** Makes a condition available to waitUntil nodes by name. */
+    public void registerCondition(String name, BooleanSupplier condition) {
+        conditions.put(name, condition);
+    }
+
+    /** Loads every routine in deploy/autos. */
+    public Map<String, Command> loadAll() {
+        return loadAll(new File(Filesystem.getDeployDirectory(), "autos"));
+    }
+
+    /**
+     * Parses and builds every *.json routine in the directory, sorted by file name.
+     * A routine that fails to parse or build is reported and skipped.
+     */
+    public Map<String, Command> loadAll(File dir) {
+        Map<String, Command> routines = new LinkedHashMap<>();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+        if (files == null) {
+            System.out.println("No auto routines in " + dir);
+            return routines;
+        }
+        Arrays.sort(files);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (File file : files) {
+            try {
+                long bytes0 = threads.getThreadAllocatedBytes(threadId);
+                long t0 = System.nanoTime();
+                JsonNode root = mapper.readTree(file);
+                long t1 = System.nanoTime();
+                String name = root.path("name").asText(file.getName());
+                firstPath = true;
+                Command routine = build(root.path("command")).withName(name);
+                long t2 = System.nanoTime();
+                long bytes = threads.getThreadAllocatedBytes(threadId) - bytes0;
+                routines.put(name, routine);
+                System.out.printf("AUTO, %s, parse %.2f ms, build %.2f ms, %d KB%n", name, (t1 - t0) * 1e-6, (t2 - t1) * 1e-6, bytes / 1024);
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Auto routine " + file.getName() + " skipped: " + e.getMessage());
+            }
+        }
+        return routines;
+    }
+
+    Command build(JsonNode node) {
+        String type = node.path("type").asText();
+        switch (type) {
+            case "sequence":
+                return Commands.sequence(children(node, "commands"));
+            case "parallel":
+                return Commands.parallel(children(node, "commands"));
+            case "race":
+                return Commands.race(children(node, "commands"));
+            case "deadline":
+                return Commands.deadline(build(required(node, "deadline")), children(node, "commands"));
+            case "wait":
+                return Commands.waitSeconds(required(node, "seconds").asDouble());
+            case "waitUntil": {
+                String name = required(node, "condition").asText();
+                BooleanSupplier condition = conditions.get(name);
+                if (condition == null)
+                    throw new IllegalArgumentException("unknown condition " + name);
+                return Commands.waitUntil(condition);
+            }
+            case "named": {
+                String name = required(node, "name").asText();
+                Supplier<Command> factory = commands.get(name);
+                if (factory == null)
+                    throw new IllegalArgumentException("unknown command " + name);
+                Command command = factory.get();
+                if (node.has("timeout"))
+                    command = command.withTimeout(node.get("timeout").asDouble());
+                return command;
+            }
+            case "path": {
+                String name = required(node, "path").asText();
+                PathSpec spec = paths.get(name);
+                if (spec == null)
+                    throw new IllegalArgumentException("unknown path " + name);
+                boolean reset = node.path("resetPose").asBoolean(firstPath);
+                firstPath = false;
+                return new FollowTrajectoryCommand(m_drive, TrajectoryCache.getInstance().get(spec), reset);
+            }
+            case "fork":
+                return new ScheduleCommand(build(required(node, "command")));
+            default:
+                throw new IllegalArgumentException("unknown node type '" + type + "'");
+        }
+    }
+
+    private Command[] children(JsonNode node, String field) {
+        List<Command> list = new ArrayList<>();
+        for (JsonNode child : required(node, field))
+            list.add(build(child));
+        return list.toArray(new Command[0]);
+    }
+
+    private static JsonNode required(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null)
+            throw new IllegalArgumentException("'" + node.path("type").asText() + "' needs '" + field + "'");
+        return value;
+    }
+}
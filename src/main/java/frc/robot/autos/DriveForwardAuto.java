@@ -9,6 +9,9 @@ public class DriveForwardAuto extends Command {
     private DriveSubsystem m_drive;
     private Timer timer;
     private double drive_seconds = DriveConstants.AUTO_MODE_TIME;//3.25;
+    private double drive_distance = DriveConstants.AUTO_MODE_DISTANCE;
+    private double startX;
+    private double startY;
 
       /**
      * This auto will have the robot drive forwards
@@ -17,9 +20,10 @@ public class DriveForwardAuto extends Command {
      * auto routines. For more advanced routines you may want a different structure and 
      * to use more sensors.
      * 
-     * Here we use a single timer gate, after the robot has finished driving for the first 3.25 
-     * seconds it will stop moving. You may wish for the robot to move more or less depending on
-     * your use case.
+     * The robot drives until the pose estimate says it has covered AUTO_MODE_DISTANCE. The
+     * timer gate is only a safety net, after AUTO_MODE_TIME seconds it will stop moving even
+     * if the distance was not reached. You may wish for the robot to move more or less
+     * depending on your use case.
      * 
      * 
      * @param drive
@@ -38,6 +42,8 @@ public class DriveForwardAuto extends Command {
     // start timer, uses restart to clear the timer as well in case this command has
     // already been run before
     timer.restart();
+    startX = m_drive.getX();
+    startY = m_drive.getY();
   }
 
   // Runs every cycle while the command is scheduled (~50 times per second), here we will just drive forwards
@@ -62,8 +68,7 @@ public class DriveForwardAuto extends Command {
   // finished
   @Override
   public boolean isFinished() {
-    // check if timer exceeds seconds, when it has this will return true indicating
-    // this command is finished
-    return timer.get() >= drive_seconds;
+    // finished once we covered the distance, or when the timer exceeds seconds
+    return m_drive.getDistanceFrom(startX, startY) >= drive_distance || timer.get() >= drive_seconds;
   }
 }
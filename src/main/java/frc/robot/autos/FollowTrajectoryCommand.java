@@ -0,0 +1,68 @@
+package frc.robot.autos;
+
+import edu.wpi.first.math.controller.LTVUnicycleController;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants;
+import frc.robot.subsystems.DriveSubsystem;
+
+public class FollowTrajectoryCommand extends Command {
+    private final DriveSubsystem m_drive;
+    private final Trajectory m_trajectory;
+    private final boolean m_resetPose;
+    private final LTVUnicycleController m_controller = new LTVUnicycleController(Constants.TimePeriod);
+    private final Timer timer = new Timer();
+
+    /**
+     * Drives the robot along a trajectory. The trajectory is sampled by time and the LTV unicycle
+     * controller corrects the error between the sampled state and the pose estimate, so the robot
+     * ends where the path ends even if the carpet or battery do not match the plan.
+     *
+     * @param drive
+     * @param trajectory the path to follow, in field coordinates
+     * @param resetPose start the pose estimate at the first state of the trajectory, use this on
+     *   the first path of an auto
+     */
+    public FollowTrajectoryCommand(DriveSubsystem drive, Trajectory trajectory, boolean resetPose)
+    {
+        m_drive = drive;
+        m_trajectory = trajectory;
+        m_resetPose = resetPose;
+
+        addRequirements(m_drive);
+    }
+
+    public Trajectory getTrajectory() {
+        return m_trajectory;
+    }
+
+    @Override
+  public void initialize() {
+    if (m_resetPose)
+      m_drive.resetPose(m_trajectory.getInitialPose());
+    timer.restart();
+  }
+
+  // Runs every cycle while the command is scheduled (~50 times per second)
+  @Override
+  public void execute() {
+    Trajectory.State desired = m_trajectory.sample(timer.get());
+    ChassisSpeeds speeds = m_controller.calculate(m_drive.getPose(), desired);
+    m_drive.driveChassis(speeds.vxMetersPerSecond, speeds.omegaRadiansPerSecond);
+  }
+
+  // Runs each time the command ends via isFinished or being interrupted.
+  @Override
+  public void end(boolean isInterrupted) {
+    m_drive.driveWheelSpeeds(0.0, 0.0);
+    timer.stop();
+  }
+
+  // Finished once the whole trajectory was played out
+  @Override
+  public boolean isFinished() {
+    return timer.hasElapsed(m_trajectory.getTotalTimeSeconds());
+  }
+}
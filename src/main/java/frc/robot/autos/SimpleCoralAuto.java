@@ -2,8 +2,11 @@ package frc.robot.autos;
 
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
-import frc.robot.Constants.ArmConstants;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.DriveConstants;
 import frc.robot.Constants.RollerConstants;
+import frc.robot.commands.ArmHomeCommand;
+import frc.robot.commands.ArmUpCommand;
 import frc.robot.subsystems.ArmSubsystem;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.RollerSubsystem;
@@ -12,9 +15,15 @@ public class SimpleCoralAuto extends Command {
     private DriveSubsystem m_drive;
     private RollerSubsystem m_roller;
     private ArmSubsystem m_arm;
+    private Command m_armUp;
     private Timer timer;
-    private double drive_seconds = 3.25;
-    private double exjest_seconds = 4.5;
+    private double drive_seconds = DriveConstants.CORAL_AUTO_DRIVE_TIME;
+    private double drive_distance = DriveConstants.CORAL_AUTO_DISTANCE;
+    private double exjest_seconds = DriveConstants.CORAL_AUTO_EJECT_TIME;
+    private double startX;
+    private double startY;
+    // Time the robot reached the reef, or -1 while still driving
+    private double arrived_seconds;
 
     /**
      * This auto will have the robot drive forwards, stop, then drop the coral into L1
@@ -23,8 +32,9 @@ public class SimpleCoralAuto extends Command {
      * auto routines. For more advanced routines you may want a different structure and 
      * to use more sensors.
      * 
-     * Here we use two timer gates, after the robot has finished driving for the first 3.25 
-     * seconds, it will exjest the coral for 4.5-3.25 = 1.25 seconds.
+     * The robot drives until the pose estimate says it has covered CORAL_AUTO_DISTANCE
+     * (with CORAL_AUTO_DRIVE_TIME as a worst case timer gate), then it will exjest the coral
+     * for CORAL_AUTO_EJECT_TIME = 1.25 seconds.
      * 
      * 
      * @param drive
@@ -38,10 +48,12 @@ public class SimpleCoralAuto extends Command {
         m_arm = arm;
         
         timer = new Timer();
+        // Scheduled on its own, so the auto never owns the arm and the arm's default
+        // command holds it up once the move is done, see ArmHoldCommand
+        m_armUp = ArmHomeCommand.homeThen(m_arm, new ArmUpCommand(m_arm));
 
         addRequirements(m_drive);
         addRequirements(m_roller);
-        addRequirements(m_arm);
     }
 
     @Override
@@ -49,28 +61,37 @@ public class SimpleCoralAuto extends Command {
     // start timer, uses restart to clear the timer as well in case this command has
     // already been run before
     timer.restart();
+    startX = m_drive.getX();
+    startY = m_drive.getY();
+    arrived_seconds = -1;
+    /**
+     * We always want to hold the arm up during the auto to ensure the rollers
+     * reach the reef
+     */
+    CommandScheduler.getInstance().schedule(m_armUp);
   }
 
   // Runs every cycle while the command is scheduled (~50 times per second)
   @Override
   public void execute() {
     /**
-     * We always want to hold the arm up duirng the auto to ensure the rollers
-     */ 
-    m_arm.run(ArmConstants.ARM_HOLD_UP);
-
-    /**
-     * While this timer is less than drive_seconds, the robot will obey the command inside
+     * Until the robot covered drive_distance (or the timer passed drive_seconds),
+     * the robot will obey the command inside
      */
-    if(timer.get() < drive_seconds)
+    if(arrived_seconds < 0)
     {
-        m_drive.driveArcade(0.3, 0.0,false);
+        if (m_drive.getDistanceFrom(startX, startY) < drive_distance && timer.get() < drive_seconds)
+        {
+            m_drive.driveArcade(DriveConstants.CORAL_AUTO_SPEED, 0.0,false);
+            return;
+        }
+        arrived_seconds = timer.get();
     }
     /**
-     * Once the timer is greater than drive_seconds but less than exjest seconds,
-     * the code inside will run, here we stop the drivetrain and exjest the coral.
+     * Once arrived and for the next exjest seconds, the code inside will run,
+     * here we stop the drivetrain and exjest the coral.
      */
-    else if(timer.get() > drive_seconds && timer.get() < exjest_seconds)
+    if(timer.get() < arrived_seconds + exjest_seconds)
     {
         m_drive.driveArcade(0.0, 0.0,false);
         m_roller.runRoller(RollerConstants.ROLLER_CORAL_OUT);
@@ -83,6 +104,7 @@ public class SimpleCoralAuto extends Command {
     // stop drive motors
     m_drive.driveArcade(0.0, 0.0, false);
     m_roller.runRoller(0);
+    CommandScheduler.getInstance().cancel(m_armUp);
     timer.stop();
   }
 
@@ -92,6 +114,6 @@ public class SimpleCoralAuto extends Command {
   public boolean isFinished() {
     // check if timer exceeds seconds, when it has this will return true indicating
     // this command is finished
-    return timer.get() >= exjest_seconds;
+    return arrived_seconds >= 0 && timer.get() >= arrived_seconds + exjest_seconds;
   }
 }
@@ -0,0 +1,124 @@
+package frc.robot.autos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.Constants;
+import frc.robot.subsystems.DriveSubsystem;
+
+/**
+ * Builds an autonomous routine out of trajectories and mechanism commands.
+ *
+ * Paths run one after another. Commands attached to a path with at(), atWaypoint() or
+ * beforeEnd() are started while the robot is still driving, so moving the arm or spinning up
+ * the shooter overlaps with the drive. They are members of the routine, not scheduled on
+ * their own: their subsystems belong to the routine, so starting one never interrupts it,
+ * and they end with it. The next step waits until the path and every command started along
+ * it have finished, e.g. a shot started before the end of the path is fed once the robot has
+ * arrived. Commands added with then() run between paths and the next path waits for them.
+ *
+ * Arm moves are the exception, pass them asProxy(): the routine then never owns the arm, and
+ * the arm's default command holds it at its new setpoint once the move is done.
+ *
+ * <pre>
+ * new TrajectoryAutoBuilder(drive)
+ *     .path(toReef)
+ *     .atWaypoint(armPoint, new ArmUpCommand(arm).asProxy())
+ *     .then(new CoralOutCommand(roller).withTimeout(1.0))
+ *     .path(toNet)
+ *     .beforeEnd(2.0, new AlgieShootCommand(shooter, roller, 3))
+ *     .build();
+ * </pre>
+ *
+ * Commands started along a path must end by themselves (use withTimeout() for commands that
+ * never finish), otherwise the routine waits for them forever.
+ */
+public class TrajectoryAutoBuilder {
+    private final DriveSubsystem m_drive;
+    private final List<Command> steps = new ArrayList<>();
+
+    // The path being built and the commands started along it
+    private FollowTrajectoryCommand currentPath;
+    private final List<Command> currentMarkers = new ArrayList<>();
+
+    public TrajectoryAutoBuilder(DriveSubsystem drive) {
+        m_drive = drive;
+    }
+
+    /** Adds a path. The first path of the routine also resets the pose estimate to its start. */
+    public TrajectoryAutoBuilder path(Trajectory trajectory) {
+        flush();
+        currentPath = new FollowTrajectoryCommand(m_drive, trajectory, steps.isEmpty());
+        return this;
+    }
+
+    /**
+     * Starts the command the given number of seconds into the current path, no later than one
+     * cycle before its end so it still starts while the robot is driving.
+     */
+    public TrajectoryAutoBuilder at(double seconds, Command action) {
+        if (currentPath == null)
+            throw new IllegalStateException("at() needs a path to attach to");
+        double end = currentPath.getTrajectory().getTotalTimeSeconds() - Constants.TimePeriod;
+        double t = Math.max(0, Math.min(seconds, end));
+        currentMarkers.add(Commands.sequence(Commands.waitSeconds(t), action));
+        return this;
+    }
+
+    /** Starts the command when the current path passes closest to the waypoint. */
+    public TrajectoryAutoBuilder atWaypoint(Translation2d waypoint, Command action) {
+        if (currentPath == null)
+            throw new IllegalStateException("atWaypoint() needs a path to attach to");
+        return at(timeNearest(currentPath.getTrajectory(), waypoint), action);
+    }
+
+    /** Starts the command the given number of seconds before the current path ends. */
+    public TrajectoryAutoBuilder beforeEnd(double seconds, Command action) {
+        if (currentPath == null)
+            throw new IllegalStateException("beforeEnd() needs a path to attach to");
+        return at(currentPath.getTrajectory().getTotalTimeSeconds() - seconds, action);
+    }
+
+    /** Runs the command after the current path, the robot stands still until it finishes. */
+    public TrajectoryAutoBuilder then(Command action) {
+        flush();
+        steps.add(action);
+        return this;
+    }
+
+    public Command build() {
+        flush();
+        return Commands.sequence(steps.toArray(new Command[0]));
+    }
+
+    private void flush() {
+        if (currentPath == null)
+            return;
+        if (currentMarkers.isEmpty()) {
+            steps.add(currentPath);
+        } else {
+            currentMarkers.add(0, currentPath);
+            steps.add(Commands.parallel(currentMarkers.toArray(new Command[0])));
+        }
+        currentPath = null;
+        currentMarkers.clear();
+    }
+
+    /** Time at which the trajectory gets closest to the point. */
+    static double timeNearest(Trajectory trajectory, Translation2d point) {
+        double best = Double.MAX_VALUE;
+        double time = 0;
+        for (Trajectory.State state : trajectory.getStates()) {
+            double d = state.poseMeters.getTranslation().getDistance(point);
+            if (d < best) {
+                best = d;
+                time = state.timeSeconds;
+            }
+        }
+        return time;
+    }
+}
@@ -0,0 +1,78 @@
+package frc.robot.autos;
+
+import java.util.List;
+
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.constraint.CentripetalAccelerationConstraint;
+import edu.wpi.first.math.trajectory.constraint.DifferentialDriveVoltageConstraint;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.autos.TrajectoryCache.PathSpec;
+import frc.robot.commands.AlgieShootCommand;
+import frc.robot.commands.ArmHomeCommand;
+import frc.robot.commands.ArmUpCommand;
+import frc.robot.commands.CoralOutCommand;
+import frc.robot.subsystems.ArmSubsystem;
+import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.RollerSubsystem;
+import frc.robot.subsystems.ShooterSubsystem;
+
+/**
+ * Paths and trajectory-based autonomous routines. All poses are relative to the
+ * starting pose of the robot, x forwards and y to the left.
+ */
+public final class TrajectoryAutos {
+    private TrajectoryAutos() {}
+
+    public static final Pose2d START = new Pose2d();
+    // Reef face straight ahead of the start line; the arm goes up on the way
+    public static final Pose2d REEF = new Pose2d(2.2, 0, new Rotation2d());
+    public static final Translation2d ARM_UP_POINT = new Translation2d(0.8, 0);
+    // Backing away from the reef to the shooting spot in front of the net
+    public static final Pose2d NET = new Pose2d(0.8, 1.2, new Rotation2d());
+
+    public static final PathSpec START_TO_REEF = new PathSpec("StartToReef", START, List.of(ARM_UP_POINT), REEF, false);
+    public static final PathSpec REEF_TO_NET = new PathSpec("ReefToNet", REEF, List.of(), NET, true);
+
+    /** Every path used by an auto, these are pregenerated by the generateTrajectories build step. */
+    public static final List<PathSpec> PATHS = List.of(START_TO_REEF, REEF_TO_NET);
+
+    /**
+     * Trajectory config for the drivetrain: speed and acceleration limits, plus the voltage
+     * constraint so the generated path never asks for more than the motors can do.
+     * Any constant used here must also go into PathSpec.hash().
+     */
+    public static TrajectoryConfig config(boolean reversed) {
+        DifferentialDriveKinematics kinematics = new DifferentialDriveKinematics(DriveConstants.TRACK_WIDTH);
+        TrajectoryConfig config = new TrajectoryConfig(AutoConstants.MAX_SPEED, AutoConstants.MAX_ACCEL);
+        config.setKinematics(kinematics);
+        config.addConstraint(new DifferentialDriveVoltageConstraint(
+            new SimpleMotorFeedforward(DriveConstants.kS, DriveConstants.kV, DriveConstants.kA),
+            kinematics, AutoConstants.MAX_VOLTAGE));
+        config.addConstraint(new CentripetalAccelerationConstraint(AutoConstants.MAX_CENTRIPETAL_ACCEL));
+        config.setReversed(reversed);
+        return config;
+    }
+
+    /**
+     * Scores the preloaded coral and then shoots the algae into the net. The arm goes up
+     * while driving to the reef, and the shooter spins up during the last part of the drive
+     * to the net so the shot is fed right as the robot arrives.
+     */
+    public static Command coralAndAlgae(DriveSubsystem drive, ArmSubsystem arm, RollerSubsystem roller, ShooterSubsystem shooter) {
+        TrajectoryCache paths = TrajectoryCache.getInstance();
+        return new TrajectoryAutoBuilder(drive)
+            .path(paths.get(START_TO_REEF))
+            .atWaypoint(ARM_UP_POINT, ArmHomeCommand.homeThen(arm, new ArmUpCommand(arm)).asProxy())
+            .then(new CoralOutCommand(roller).withTimeout(AutoConstants.CORAL_EJECT_TIME))
+            .path(paths.get(REEF_TO_NET))
+            .beforeEnd(AutoConstants.SHOOTER_SPINUP_LEAD, new AlgieShootCommand(shooter, roller, 3))
+            .build();
+    }
+}
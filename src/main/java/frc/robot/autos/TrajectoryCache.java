@@ -0,0 +1,202 @@
+package frc.robot.autos;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Keeps the auto trajectories as precomputed binary files so nothing is generated on the
+ * roboRIO when autonomous starts, and normally not even at boot.
+ *
+ * The generateTrajectories Gradle task runs main() before every jar build and writes one
+ * file per path into build/deploy/paths, which is deployed with the code. On the robot
+ * the files are memory-mapped and decoded the first time a path is asked for. Every file
+ * carries a hash of the path definition and the trajectory config it was generated with;
+ * if the hash does not match (constants changed without regenerating) or the file is
+ * missing, only that path is generated again and its file rewritten.
+ *
+ * File layout, big endian: int magic, long hash, int state count, then per state
+ * 7 doubles: time, velocity, acceleration, x, y, heading (rad), curvature.
+ */
+public class TrajectoryCache {
+    static final int MAGIC = 0x54524a31;  // "TRJ1"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 4 + 8 + 4;
+    static final int STATE_BYTES = 7 * 8;
+    static final String EXTENSION = ".traj";
+
+    private static TrajectoryCache instance;
+
+    /** Everything a generated trajectory depends on. */
+    public static final class PathSpec {
+        public final String name;
+        private final Pose2d start;
+        private final List<Translation2d> interior;
+        private final Pose2d end;
+        private final boolean reversed;
+
+        public PathSpec(String name, Pose2d start, List<Translation2d> interior, Pose2d end, boolean reversed) {
+            this.name = name;
+            this.start = start;
+            this.interior = interior;
+            this.end = end;
+            this.reversed = reversed;
+        }
+
+        public Trajectory generate() {
+            return TrajectoryGenerator.generateTrajectory(start, interior, end, TrajectoryAutos.config(reversed));
+        }
+
+        /** Hash of the waypoints and of every constant that goes into the trajectory config. */
+        public long hash() {
+            long h = FORMAT_VERSION;
+            h = mix(h, start.getX(), start.getY(), start.getRotation().getRadians());
+            for (Translation2d p : interior)
+                h = mix(h, p.getX(), p.getY());
+            h = mix(h, end.getX(), end.getY(), end.getRotation().getRadians(), reversed ? 1 : 0);
+            h = mix(h, AutoConstants.MAX_SPEED, AutoConstants.MAX_ACCEL, AutoConstants.MAX_CENTRIPETAL_ACCEL,
+                AutoConstants.MAX_VOLTAGE, DriveConstants.kS, DriveConstants.kV, DriveConstants.kA,
+                DriveConstants.TRACK_WIDTH);
+            return h;
+        }
+
+        private static long mix(long h, double... values) {
+            for (double v : values)
+                h = 31 * h + Double.doubleToLongBits(v);
+            return h;
+        }
+    }
+
+    private final File directory;
+    private final Map<String, Trajectory> loaded = new HashMap<>();
+
+    /**
+     * On the robot the cache is the deployed paths directory. On the desktop the deploy
+     * directory is src/main/deploy, so simulation, replay and the allocation budget use the
+     * build output instead, where generateTrajectories wrote the files; nothing regenerated
+     * there ends up in the source tree or is deployed over the fresh files.
+     */
+    public static synchronized TrajectoryCache getInstance() {
+        if (instance == null) {
+            File directory = RobotBase.isSimulation()
+                ? new File(Filesystem.getOperatingDirectory(), "build/deploy/paths")
+                : new File(Filesystem.getDeployDirectory(), "paths");
+            instance = new TrajectoryCache(directory);
+        }
+        return instance;
+    }
+
+    public TrajectoryCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the trajectory for the path, reading it from its file on first use.
+     * Generates and rewrites the file only when it is missing or stale.
+     */
+    public synchronized Trajectory get(PathSpec spec) {
+        Trajectory trajectory = loaded.get(spec.name);
+        if (trajectory != null)
+            return trajectory;
+
+        File file = new File(directory, spec.name + EXTENSION);
+        long hash = spec.hash();
+        long t0 = System.nanoTime();
+        trajectory = read(file, hash);
+        if (trajectory != null) {
+            System.out.printf("Path %s: loaded %d states in %.2f ms%n", spec.name, trajectory.getStates().size(), (System.nanoTime() - t0) * 1e-6);
+        } else {
+            trajectory = spec.generate();
+            System.out.printf("Path %s: stale or missing, generated in %.1f ms%n", spec.name, (System.nanoTime() - t0) * 1e-6);
+            write(file, trajectory, hash);
+        }
+        loaded.put(spec.name, trajectory);
+        return trajectory;
+    }
+
+    /** Reads a trajectory file, or returns null if it is missing, corrupt or was generated from a different spec. */
+    static Trajectory read(File file, long hash) {
+        if (!file.isFile())
+            return null;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.remaining() < HEADER_BYTES || buf.getInt() != MAGIC || buf.getLong() != hash)
+                return null;
+            int count = buf.getInt();
+            if (count < 1 || buf.remaining() < (long) count * STATE_BYTES)
+                return null;
+            List<Trajectory.State> states = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                double t = buf.getDouble();
+                double v = buf.getDouble();
+                double a = buf.getDouble();
+                double x = buf.getDouble();
+                double y = buf.getDouble();
+                double heading = buf.getDouble();
+                double curvature = buf.getDouble();
+                states.add(new Trajectory.State(t, v, a, new Pose2d(x, y, new Rotation2d(heading)), curvature));
+            }
+            return new Trajectory(states);
+        } catch (IOException e) {
+            System.out.println("Path file " + file + " unreadable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    static void write(File file, Trajectory trajectory, long hash) {
+        List<Trajectory.State> states = trajectory.getStates();
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + states.size() * STATE_BYTES);
+        buf.putInt(MAGIC).putLong(hash).putInt(states.size());
+        for (Trajectory.State s : states) {
+            buf.putDouble(s.timeSeconds)
+                .putDouble(s.velocityMetersPerSecond)
+                .putDouble(s.accelerationMetersPerSecondSq)
+                .putDouble(s.poseMeters.getX())
+                .putDouble(s.poseMeters.getY())
+                .putDouble(s.poseMeters.getRotation().getRadians())
+                .putDouble(s.curvatureRadPerMeter);
+        }
+        buf.flip();
+        file.getParentFile().mkdirs();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining())
+                channel.write(buf);
+        } catch (IOException e) {
+            System.out.println("Path file " + file + " not written: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Build step: generates every path in TrajectoryAutos.PATHS into the given directory.
+     * Unchanged paths are left alone.
+     */
+    public static void main(String... args) {
+        File dir = new File(args.length > 0 ? args[0] : "build/deploy/paths");
+        for (PathSpec spec : TrajectoryAutos.PATHS) {
+            File file = new File(dir, spec.name + EXTENSION);
+            long hash = spec.hash();
+            if (read(file, hash) != null)
+                continue;
+            write(file, spec.generate(), hash);
+            System.out.println("Generated " + file);
+        }
+    }
+}
@@ -9,7 +9,7 @@ import frc.robot.subsystems.RollerSubsystem;
 import frc.robot.subsystems.ShooterSubsystem;
 import edu.wpi.first.wpilibj2.command.Command;
 
-/** A command to take Algae into the robot. */
+/** A command to take Algae into the robot. Ends once the rollers have it and keeps holding it. */
 public class AlgieInCommand extends Command {
   private final RollerSubsystem m_roller;
   private final ShooterSubsystem m_shooter;
@@ -35,15 +35,19 @@ public class AlgieInCommand extends Command {
     m_roller.runRoller(RollerConstants.ROLLER_ALGAE_IN);
   }
 
-  // Called once the command ends or is interrupted. This ensures the roller is not running when not intented.
+  // Called once the command ends or is interrupted. With algae in, the rollers hold it at low
+  // power, else they stop so they are not running when not intended.
   @Override
   public void end(boolean interrupted) {
-    m_roller.runRoller(0);
+    if (m_roller.hasGamePiece())
+      m_roller.holdGamePiece();
+    else
+      m_roller.runRoller(0);
   }
 
-  // Returns true when the command should end.
+  // Returns true when the command should end: the rollers have the algae.
   @Override
   public boolean isFinished() {
-    return false;
+    return m_roller.hasGamePiece();
   }
 }
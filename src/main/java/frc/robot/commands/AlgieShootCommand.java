@@ -5,6 +5,7 @@
 package frc.robot.commands;
 
 import frc.robot.Constants;
+import frc.robot.WarmUp;
 import frc.robot.Constants.RollerConstants;
 import frc.robot.Constants.ShooterConstants;
 import frc.robot.subsystems.RollerSubsystem;
@@ -54,7 +55,7 @@ public class AlgieShootCommand extends Command {
     execCounter = 0;
     m_roller.init();
     m_shooter.init(upSpeeds[preset], downSpeeds[preset]);
-    System.out.println("Shooter initialized");
+    WarmUp.getInstance().probe("first shot");
 /*
     // PID coefficients
     kP = 0.1; 
@@ -112,7 +113,6 @@ public class AlgieShootCommand extends Command {
   public void end(boolean interrupted) {
     m_roller.runRoller(0);
     m_shooter.stop();
-    System.out.println("Shooter ended");
   }
 
   // Returns true when the command should end.
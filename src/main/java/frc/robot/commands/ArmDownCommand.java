@@ -85,7 +85,10 @@ public class ArmDownCommand extends Command {
   @Override
   public boolean isFinished() {
 //    return execCounter++ * Constants.TimePeriodMsec >= ArmConstants.ARM_TIME_DOWN;
-    return execCounter * Constants.TimePeriodMsec >= timeBreak2;
+    if (Constants.ArmUsePulse)
+      return execCounter * Constants.TimePeriodMsec >= timeBreak2;
+    else
+      return m_arm.isDone() || execCounter * Constants.TimePeriodMsec >= ArmConstants.ArmTimeUp;
   }
 
   public void putParams() {
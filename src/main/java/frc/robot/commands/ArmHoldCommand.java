@@ -0,0 +1,42 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import frc.robot.subsystems.ArmSubsystem;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/** Holds the arm where the last move left it. The default command of the arm. */
+public class ArmHoldCommand extends Command {
+  private final ArmSubsystem m_arm;
+
+  /**
+   * Keeps the arm at its setpoint against gravity whenever no other command runs it, so moves
+   * and autos do not have to send a hold output themselves. See ArmSubsystem.hold().
+   *
+   * @param arm The subsystem used by this command.
+   */
+  public ArmHoldCommand(ArmSubsystem arm) {
+    m_arm = arm;
+    addRequirements(arm);
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    m_arm.hold();
+  }
+
+  // Called once the command ends or is interrupted, by the next move.
+  @Override
+  public void end(boolean interrupted) {
+    m_arm.stop();
+  }
+
+  // Never ends on its own, it runs until a move takes the arm.
+  @Override
+  public boolean isFinished() {
+    return false;
+  }
+}
@@ -0,0 +1,89 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import frc.robot.Constants;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.subsystems.ArmSubsystem;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/** Homes the arm against its upper hard stop, once per boot, see ArmSubsystem.needsHoming(). */
+public class ArmHomeCommand extends Command {
+  private final ArmSubsystem m_arm;
+  private final Timer m_timer = new Timer();
+  private boolean m_homing;
+
+  /**
+   * Drives the arm up until it stalls against the hard stop, so the encoder reads the absolute
+   * arm angle from then on. Ends at once when the arm is already homed, by an earlier run or
+   * the absolute encoder, or when an earlier run timed out, so it can go in front of every
+   * move up without driving into the stop more than once per boot.
+   *
+   * @param arm The subsystem used by this command.
+   */
+  public ArmHomeCommand(ArmSubsystem arm) {
+    m_arm = arm;
+    addRequirements(arm);
+  }
+
+  /**
+   * An arm move up after homing the arm if it is not yet, so the hold knows the arm's angle
+   * afterwards, see ArmSubsystem.hold(). A position move is skipped when the arm is not homed,
+   * driving to an absolute angle from an unhomed encoder could run the arm into a stop. Pulse
+   * moves need no angle and run regardless. Use it for moves up and to the middle, buttons
+   * and autos alike, and withoutHoming() for moves down.
+   */
+  public static Command homeThen(ArmSubsystem arm, Command move) {
+    return new ArmHomeCommand(arm).andThen(withoutHoming(arm, move));
+  }
+
+  /**
+   * An arm move that does not home the arm first, for moves down: homing drives up into the
+   * stop, the wrong way for them. A position move still needs a homed arm, see homeThen().
+   */
+  public static Command withoutHoming(ArmSubsystem arm, Command move) {
+    if (Constants.ArmUsePulse)
+      return move;
+    return move.onlyIf(arm::isHomed);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    m_homing = m_arm.needsHoming();
+    if (!m_homing)
+      return;
+    m_arm.init();
+    m_arm.startHoming();
+    m_timer.restart();
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    if (m_homing)
+      m_arm.runHoming();
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    if (!m_homing)
+      return;
+    m_arm.stop();
+    // Interrupted by another arm command, the next move up tries again
+    if (m_arm.isHomed() || interrupted)
+      return;
+    m_arm.abandonHoming();
+    System.out.println("ARM, not homed, no stall within " + ArmConstants.HOME_TIMEOUT + " s, not trying again");
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return !m_homing || m_arm.isHomed() || m_timer.hasElapsed(ArmConstants.HOME_TIMEOUT);
+  }
+}
@@ -0,0 +1,54 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import frc.robot.Constants;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.subsystems.ArmSubsystem;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/** Moves the homed arm to the middle angle. Position mode only, pulses cannot stop halfway. */
+public class ArmMidCommand extends Command {
+  private final ArmSubsystem m_arm;
+
+  private int execCounter = 0;
+
+  /**
+   * Moves the arm to ArmConstants.AngleMid in one motion. Run ArmHomeCommand before it.
+   *
+   * @param arm The subsystem used by this command.
+   */
+  public ArmMidCommand(ArmSubsystem arm) {
+    m_arm = arm;
+    addRequirements(arm);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    m_arm.init();
+    m_arm.setAngleMid();
+    execCounter = 0;
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    ++execCounter;
+    m_arm.runToPosition(ArmConstants.AngleMid);
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    m_arm.run(0);
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return m_arm.isDone() || execCounter * Constants.TimePeriodMsec >= ArmConstants.ArmTimeUp;
+  }
+}
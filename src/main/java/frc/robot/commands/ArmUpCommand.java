@@ -82,7 +82,7 @@ public class ArmUpCommand extends Command {
     if (Constants.ArmUsePulse)
       return execCounter * Constants.TimePeriodMsec >= ArmConstants.ARM_TIME_UP_BRAKE2;
     else
-      return execCounter * Constants.TimePeriodMsec >= ArmConstants.ArmTimeUp;
+      return m_arm.isDone() || execCounter * Constants.TimePeriodMsec >= ArmConstants.ArmTimeUp;
 //    return false;
   }
 }
@@ -5,6 +5,7 @@
 package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants;
 import frc.robot.subsystems.DriveSubsystem;
 
 import java.util.function.BooleanSupplier;
@@ -46,10 +47,14 @@ public class DriveCommand extends Command {
 
   // Runs every cycle while the command is scheduled (~50 times per second)
   // In teleop we square the drive command to help improve hanlding, play
-  // around with it off, this is driver preference
+  // around with it off, this is driver preference.
+  // In velocity mode the same stick values are fractions of the top wheel speed.
   @Override
   public void execute() {
-    m_drive.driveArcade(m_xSpeed.getAsDouble(), m_zRotation.getAsDouble(), m_squared.getAsBoolean());
+    if (Constants.DriveUseVelocity)
+      m_drive.driveArcadeVelocity(m_xSpeed.getAsDouble(), m_zRotation.getAsDouble(), m_squared.getAsBoolean());
+    else
+      m_drive.driveArcade(m_xSpeed.getAsDouble(), m_zRotation.getAsDouble(), m_squared.getAsBoolean());
   }
 
   // Runs each time the command ends via isFinished or being interrupted.
@@ -0,0 +1,58 @@
+package frc.robot.subsystems;
+
+import frc.robot.LoggedInputs;
+
+/** Hardware seam of the arm, see DriveIO. */
+public interface ArmIO {
+
+    /** Everything the arm reads from the hardware, updated once per cycle. */
+    class Inputs implements LoggedInputs {
+        private static final String[] NAMES = {"Position", "Velocity", "Applied", "Current", "Temperature",
+            "AbsolutePosition", "AbsoluteConnected"};
+
+        public double position;  // motor rotations
+        public double velocity;  // motor RPM
+        public double applied;   // duty cycle
+        public double current;   // A, both motors
+        public double temperature;  // C, the hotter motor as reported by its controller
+        // Optional absolute encoder on the arm shaft, read as motor rotations from the
+        // horizontal; false when there is none or it is unplugged
+        public double absolutePosition;
+        public boolean absoluteConnected;
+
+        @Override public String[] names() {
+            return NAMES;
+        }
+
+        @Override public void toArray(double[] v) {
+            v[0] = position;
+            v[1] = velocity;
+            v[2] = applied;
+            v[3] = current;
+            v[4] = temperature;
+            v[5] = absolutePosition;
+            v[6] = absoluteConnected ? 1 : 0;
+        }
+
+        @Override public void fromArray(double[] v) {
+            position = v[0];
+            velocity = v[1];
+            applied = v[2];
+            current = v[3];
+            temperature = v[4];
+            absolutePosition = v[5];
+            absoluteConnected = v[6] != 0;
+        }
+    }
+
+    default void updateInputs(Inputs inputs) {}
+
+    /** Arm output, -1 to 1. */
+    default void setOutput(double output) {}
+
+    /** Sets the encoder reading, in motor rotations. */
+    default void resetPosition(double position) {}
+
+    /** Smart current limit of both arm motors, in amps. */
+    default void setCurrentLimit(int amps) {}
+}
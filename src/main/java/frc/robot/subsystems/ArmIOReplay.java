@@ -0,0 +1,11 @@
+package frc.robot.subsystems;
+
+import frc.robot.InputsLog;
+
+/** Arm inputs read back from a match log. Outputs go nowhere. */
+public class ArmIOReplay implements ArmIO {
+    @Override
+    public void updateInputs(Inputs inputs) {
+        InputsLog.getInstance().replay("Arm", inputs);
+    }
+}
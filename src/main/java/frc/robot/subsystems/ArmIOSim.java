@@ -0,0 +1,37 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.sim.SparkMaxSim;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import frc.robot.Constants;
+import frc.robot.Constants.ArmConstants;
+
+/**
+ * Desktop simulation of the arm as a geared inertia, without gravity. It starts down and stops
+ * hard at the upper stop, so homing finds it.
+ */
+public class ArmIOSim extends ArmIOSparkMax {
+    // Arm shaft angle of the upper hard stop from the start, in rad
+    private static final double HARD_STOP =
+        (ArmConstants.AngleHome - ArmConstants.AngleDown) / ArmConstants.GearRatio * 2 * Math.PI;
+
+    private final DCMotorSim armSim = new DCMotorSim(
+        LinearSystemId.createDCMotorSystem(DCMotor.getNEO(2), ArmConstants.SIM_MOI, ArmConstants.GearRatio),
+        DCMotor.getNEO(2));
+    private final SparkMaxSim motorSim = new SparkMaxSim(armMotor, DCMotor.getNEO(2));
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        double vbus = RobotController.getBatteryVoltage();
+        armSim.setInputVoltage(motorSim.getAppliedOutput() * vbus);
+        armSim.update(Constants.TimePeriod);
+        if (armSim.getAngularPositionRad() > HARD_STOP)
+            armSim.setState(HARD_STOP, 0);
+        // The encoder counts motor rotations, the model turns the arm shaft
+        motorSim.iterate(armSim.getAngularVelocityRPM() * ArmConstants.GearRatio, vbus, Constants.TimePeriod);
+        super.updateInputs(inputs);
+    }
+}
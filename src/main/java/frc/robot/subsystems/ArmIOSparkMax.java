@@ -0,0 +1,77 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
+import com.revrobotics.spark.config.SparkMaxConfig;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.DutyCycleEncoder;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.SparkConfigurator;
+
+/**
+ * Arm on two Spark MAX controllers, the second one following the first inverted, with an
+ * optional absolute encoder on the arm shaft plugged into the roboRIO.
+ */
+public class ArmIOSparkMax implements ArmIO {
+    protected final SparkMax armMotor;
+    protected final SparkMax armMotorR;
+    private final RelativeEncoder m_encoder;
+    private final DutyCycleEncoder m_absoluteEncoder;
+
+    public ArmIOSparkMax() {
+        armMotor = new SparkMax(ArmConstants.ARM_MOTOR_ID, MotorType.kBrushless);
+        armMotorR = new SparkMax(ArmConstants.ARM_MOTOR_IDR, MotorType.kBrushless);
+        m_encoder = armMotor.getEncoder();
+        m_absoluteEncoder = ArmConstants.ABSOLUTE_ENCODER_CHANNEL >= 0
+            ? new DutyCycleEncoder(ArmConstants.ABSOLUTE_ENCODER_CHANNEL) : null;
+
+        // Long CAN timeout, see SparkConfigurator.configure()
+        armMotor.setCANTimeout(250);
+
+        // Create and apply configuration for arm motor. Voltage compensation helps
+        // the arm behave the same as the battery
+        // voltage dips. The current limit helps prevent breaker trips or burning out
+        // the motor in the event the arm stalls.
+        SparkMaxConfig config = new SparkMaxConfig();
+        config.voltageCompensation(ArmConstants.ARM_MOTOR_VOLTAGE_COMP);
+        config.smartCurrentLimit(ArmConstants.ARM_MOTOR_CURRENT_LIMIT);
+        config.idleMode(IdleMode.kCoast);
+        SparkConfigurator.getInstance().configure("Arm", armMotor, config);
+        config.follow(ArmConstants.ARM_MOTOR_ID, true);
+        SparkConfigurator.getInstance().configure("Arm R", armMotorR, config);
+    }
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.position = m_encoder.getPosition();
+        inputs.velocity = m_encoder.getVelocity();
+        inputs.applied = armMotor.getAppliedOutput();
+        inputs.current = armMotor.getOutputCurrent() + armMotorR.getOutputCurrent();
+        inputs.temperature = Math.max(armMotor.getMotorTemperature(), armMotorR.getMotorTemperature());
+        inputs.absoluteConnected = m_absoluteEncoder != null && m_absoluteEncoder.isConnected();
+        if (inputs.absoluteConnected) {
+            // The arm swings well within one turn, so centered on the horizontal it never wraps
+            double turns = MathUtil.inputModulus(m_absoluteEncoder.get() - ArmConstants.ABSOLUTE_OFFSET, -0.5, 0.5);
+            inputs.absolutePosition = turns * ArmConstants.GearRatio;
+        }
+    }
+
+    @Override
+    public void setOutput(double output) {
+        armMotor.set(output);
+    }
+
+    @Override
+    public void resetPosition(double position) {
+        m_encoder.setPosition(position);
+    }
+
+    @Override
+    public void setCurrentLimit(int amps) {
+        SparkConfigurator.getInstance().setCurrentLimit(armMotor, amps);
+        SparkConfigurator.getInstance().setCurrentLimit(armMotorR, amps);
+    }
+}
@@ -1,28 +1,37 @@
 package frc.robot.subsystems;
 
-import com.revrobotics.spark.SparkMax;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
-import com.revrobotics.spark.SparkLowLevel.MotorType;
-import com.revrobotics.spark.config.SparkMaxConfig;
-import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
-
+import edu.wpi.first.math.controller.ArmFeedforward;
 import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.filter.Debouncer;
+import edu.wpi.first.math.filter.Debouncer.DebounceType;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.AllocationConstants;
 import frc.robot.Constants.ArmConstants;
 import frc.robot.Constants.RollerConstants;
 import frc.robot.Constants.ShooterConstants;
+import frc.robot.Constants.TelemetryConstants;
 import frc.robot.Constants;
+import frc.robot.AllocationMeter;
+import frc.robot.InputsLog;
 import frc.robot.PIDCtrl;
+import frc.robot.PowerManager;
+import frc.robot.Telemetry;
+import frc.robot.WarmUp;
 
-public class ArmSubsystem extends SubsystemBase {
+public class ArmSubsystem extends SubsystemBase implements PowerManager.Load {
 
-    private final SparkMax armMotor;
-    private final SparkMax armMotorR;
-    private RelativeEncoder m_encoder;
+    private final ArmIO io;
+    private final ArmIO.Inputs inputs = new ArmIO.Inputs();
+    private final AllocationMeter.HotPath hotPath =
+        AllocationMeter.getInstance().hotPath("Arm", AllocationConstants.ARM_PERIODIC);
     private final PIDCtrl pidCtrl;
 
     private double speedUp = ArmConstants.SpeedUp;
@@ -56,36 +65,151 @@ public class ArmSubsystem extends SubsystemBase {
     private double time;
     private boolean done;
 
+    // Output cap from the power manager
+    private double outputScale = 1;
+
+    // The encoder reads the absolute angle once homed, for the rest of the boot
+    private boolean homed = false;
+    // Set once homing timed out, it is not tried again this boot, see needsHoming()
+    private boolean homingAbandoned = false;
+    private double homeStart;
+    private final Debouncer stallDebouncer = new Debouncer(ArmConstants.HOME_STALL_TIME, DebounceType.kRising);
+
+    // Hold, see hold()
+    private final ArmFeedforward feedforward = new ArmFeedforward(0, ArmConstants.kG, 0);
+    private boolean hasSetpoint = false;
+
+    // Log entries for the outputs, the inputs are logged by InputsLog
+    private final DoubleLogEntry logSetpoint;
+    private final DoubleLogEntry logControl;
+    private final DoubleLogEntry logControlRaw;
+    private final DoubleLogEntry logDt;
+    private final BooleanLogEntry logAtPosition;
+    private final BooleanLogEntry logHomed;
+
     /**
      * This subsytem that controls the arm.
      */
-    public ArmSubsystem () {
-        // Set up the arm motor as a brushed motor
-        armMotor = new SparkMax(ArmConstants.ARM_MOTOR_ID, MotorType.kBrushless);
-        armMotorR = new SparkMax(ArmConstants.ARM_MOTOR_IDR, MotorType.kBrushless);
-        m_encoder = armMotor.getEncoder();
-        pidCtrl = new PIDCtrl(kP, kI, kD, Constants.TimePeriod);
+    public ArmSubsystem (ArmIO io) {
+        this(io, false);
+    }
 
-        // Set can timeout. Because this project only sets parameters once on
-        // construction, the timeout can be long without blocking robot operation. Code
-        // which sets or gets parameters during operation may need a shorter timeout.
-        armMotor.setCANTimeout(250);
+    /**
+     * @param io the arm hardware, simulation or replay
+     * @param warmUp an instance for the JIT warm-up: not registered with the schedulers, logs
+     *        nowhere and publishes nothing
+     */
+    public ArmSubsystem (ArmIO io, boolean warmUp) {
+        this.io = io;
+        if (warmUp)
+            CommandScheduler.getInstance().unregisterSubsystem(this);
+        else
+            Telemetry.getInstance().group("Arm")
+                .signal("position", () -> inputs.position, 1, 0.01)
+                .signal("setpoint", () -> angleSet)
+                .signal("control", () -> controlValue, 1, 0.005)
+                .signal("current", () -> inputs.current, TelemetryConstants.SLOW, 0.5)
+                .signal("homed", () -> homed ? 1 : 0)
+                .start();
+        pidCtrl = new PIDCtrl(kP, kI, kD, Constants.TimePeriod);
 
-        // Create and apply configuration for arm motor. Voltage compensation helps
-        // the arm behave the same as the battery
-        // voltage dips. The current limit helps prevent breaker trips or burning out
-        // the motor in the event the arm stalls.
-        SparkMaxConfig config = new SparkMaxConfig();
-        config.voltageCompensation(ArmConstants.ARM_MOTOR_VOLTAGE_COMP);
-        config.smartCurrentLimit(ArmConstants.ARM_MOTOR_CURRENT_LIMIT);
-        config.idleMode(IdleMode.kCoast);
-        armMotor.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-        config.follow(ArmConstants.ARM_MOTOR_ID, true);
-        armMotorR.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+        DataLog log = warmUp ? WarmUp.discardLog() : DataLogManager.getLog();
+        logSetpoint = new DoubleLogEntry(log, "/Arm/Setpoint");
+        logControl = new DoubleLogEntry(log, "/Arm/Control");
+        logControlRaw = new DoubleLogEntry(log, "/Arm/ControlRaw");
+        logDt = new DoubleLogEntry(log, "/Arm/Dt");
+        logAtPosition = new BooleanLogEntry(log, "/Arm/AtPosition");
+        logHomed = new BooleanLogEntry(log, "/Arm/Homed");
     }
 
+    // Inputs are read and logged every cycle, whether or not a command runs the arm
     @Override
     public void periodic() {
+        io.updateInputs(inputs);
+        hotPath.begin();
+        InputsLog.getInstance().record("Arm", inputs);
+        // An absolute encoder homes the arm as soon as it is read, wherever the arm is
+        if (!homed && inputs.absoluteConnected)
+            setHome(inputs.absolutePosition);
+        // The arm may have been moved by hand, it is held where it is once enabled again
+        if (DriverStation.isDisabled())
+            hasSetpoint = false;
+        hotPath.end();
+    }
+
+    private void setHome(double position) {
+        io.resetPosition(position);
+        inputs.position = position;
+        homed = true;
+        logHomed.append(true);
+    }
+
+    /** True once the encoder reads the absolute arm angle, see ArmConstants.AngleUp. */
+    public boolean isHomed() {
+        return homed;
+    }
+
+    /**
+     * True while the arm is not homed and homing has not timed out yet. Homing is tried once
+     * per boot, an arm that does not stall against the stop is not driven into it again.
+     */
+    public boolean needsHoming() {
+        return !homed && !homingAbandoned;
+    }
+
+    /** Homing timed out without a stall, see needsHoming(). */
+    public void abandonHoming() {
+        homingAbandoned = true;
+    }
+
+    /** Starts driving the arm into its upper hard stop, see runHoming(). */
+    public void startHoming() {
+        homeStart = Timer.getFPGATimestamp();
+        stallDebouncer.calculate(false);
+    }
+
+    /**
+     * Drives the arm up into the hard stop until the current spikes or the motor stalls, then
+     * sets the encoder to ArmConstants.AngleHome. Call every cycle after startHoming().
+     *
+     * @return true once the arm is homed
+     */
+    public boolean runHoming() {
+        if (homed)
+            return true;
+        setOutput(ArmConstants.HOME_OUTPUT);
+        boolean spunUp = Timer.getFPGATimestamp() - homeStart > ArmConstants.HOME_SPINUP;
+        boolean stalled = spunUp && (inputs.current > ArmConstants.HOME_CURRENT
+            || Math.abs(inputs.velocity) < ArmConstants.HOME_STALL_RPM);
+        if (!stallDebouncer.calculate(stalled))
+            return false;
+        setOutput(0);
+        setHome(ArmConstants.AngleHome);
+        return true;
+    }
+
+    private void setOutput(double value) {
+        io.setOutput(value * outputScale);
+    }
+
+    @Override
+    public double getOutputCurrent() {
+        return inputs.current;
+    }
+
+    @Override
+    public double getMotorTemperature() {
+        return inputs.temperature;
+    }
+
+    @Override
+    public void setOutputScale(double scale) {
+        outputScale = scale;
+    }
+
+    @Override
+    public void setCurrentLimit(int amps) {
+        io.setCurrentLimit(amps);
     }
     /** 
      * This is a method that makes the arm move at your desired speed
@@ -94,10 +218,10 @@ public class ArmSubsystem extends SubsystemBase {
      * @param speed motor speed from -1.0 to 1, with 0 stopping it
      */
     public void run(double speed){
-        armMotor.set(speed);
+        setOutput(speed);
 //        armMotorR.set(-speed);
-        double vel = m_encoder.getVelocity();
-        double pos = m_encoder.getPosition();
+        double vel = inputs.velocity;
+        double pos = inputs.position;
 //        System.out.printf("ARM-RUN, -, %.2f, %.3f, -, %.4f%n", pos, vel, armMotor.getAppliedOutput());
 
         //TODO !!! Different
@@ -115,23 +239,65 @@ public class ArmSubsystem extends SubsystemBase {
         execCounter = 0;
         time = 0;
         done = false;
-        m_encoder.setPosition(0);
         pidCtrl.reset();
     }
 
     public void stop() {
-        armMotor.set(0);
+        setOutput(0);
     }
 
     public boolean isAtPosition(double target, double pos, double velosity) {
         return Math.abs(1 - pos / target) < posDelta && Math.abs(velosity) < rpmDelta;
     }
 
+    /** True once runToPosition() got the arm to its setpoint. */
+    public boolean isDone() {
+        return done;
+    }
+
+    public void setAngleMid() {
+        angleSet = angleMid;
+        hasSetpoint = true;
+        logSetpoint.append(angleSet);
+    }
+
     public void setAngle(boolean up) {
         if (up)
             angleSet = angleUp;
         else
             angleSet = angleDown;
+        hasSetpoint = true;
+        logSetpoint.append(angleSet);
+    }
+
+    /**
+     * Holds the arm at the setpoint of the last move, call every cycle, see ArmHoldCommand.
+     * Once homed the motors carry the weight of the arm at its angle, kG cos(angle), and a small
+     * position loop takes out the drift, at any setpoint. Before that the arm is only pushed
+     * against the stop it was moved to with ARM_HOLD_UP or ARM_HOLD_DOWN. Without a setpoint,
+     * at boot or after the robot was disabled, a homed arm is held where it is and one that is
+     * not is left alone.
+     */
+    public void hold() {
+        if (!hasSetpoint) {
+            if (!homed) {
+                setOutput(0);
+                return;
+            }
+            angleSet = inputs.position;
+            hasSetpoint = true;
+            logSetpoint.append(angleSet);
+        }
+        if (homed) {
+            double angle = inputs.position / ArmConstants.GearRatio * 2 * Math.PI;
+            double gravity = feedforward.calculate(angle, 0) / ArmConstants.ARM_MOTOR_VOLTAGE_COMP;
+            controlValue = gravity
+                + PIDCtrl.limitRange(ArmConstants.HOLD_KP * (angleSet - inputs.position), ArmConstants.HOLD_MAX);
+        } else {
+            controlValue = angleSet > 0 ? ArmConstants.ARM_HOLD_UP : ArmConstants.ARM_HOLD_DOWN;
+        }
+        setOutput(controlValue);
+        logControl.append(controlValue);
     }
 
     public void runToPosition(double position) {
@@ -147,23 +313,24 @@ public class ArmSubsystem extends SubsystemBase {
 
         position = angleSet;
 
-        double positionAbs = Math.abs(position);
-        double direction = Math.signum(position);
+        double vel = inputs.velocity;
+        double pos = inputs.position;
 
-        double vel = m_encoder.getVelocity();
-        double pos = m_encoder.getPosition();
+        // The first push goes from wherever the arm is towards the setpoint
+        double direction = Math.signum(position - pos);
 
         if (dt == 0 || Math.abs(controlValue) < controlOutputMin) {
             controlValue = direction * controlOutputMin;
-            armMotor.set(controlValue);
-            System.out.println("Arm Starting with Output: " + controlValue + ", " + armMotor.getAppliedOutput());
+            setOutput(controlValue);
+            logControl.append(controlValue);
             return;
         }
         
         if (isAtPosition(position, pos, vel)) {
-            armMotor.set(0);
+            setOutput(0);
             done = true;
-            System.out.println("Arm At Set Point: " + pos + ", " + vel);
+            logControl.append(0);
+            logAtPosition.append(true);
             return;
         }
     
@@ -178,12 +345,12 @@ public class ArmSubsystem extends SubsystemBase {
 
         controlValue = PIDCtrl.limitRange(controlValue, controlOutputMax);
 
-        armMotor.set(controlValue);
-
-        SmartDashboard.putNumber("Arm Position", pos);
+        setOutput(controlValue);
 
 //    System.out.println("PID, " + time + ", " + pos + ", " + vel + ", " + dif + ", " + ctrlval + ", " + controlValue + ", " + upShooterMotor.getAppliedOutput() + ", " + dt1);
-        System.out.printf("ARM, %.2f, -, %.2f, %.3f, -, %.4f, %.4f, %.4f%n", 1000 * dt, pos, vel, ctrlval, controlValue, armMotor.getAppliedOutput());
+        logDt.append(dt);
+        logControlRaw.append(ctrlval);
+        logControl.append(controlValue);
     }
 
     public void putParams() {
@@ -0,0 +1,34 @@
+package frc.robot.subsystems;
+
+import frc.robot.LoggedInputs;
+
+/** Hardware seam of the climber, see DriveIO. */
+public interface ClimberIO {
+
+    /** Everything the climber reads from the hardware, updated once per cycle. */
+    class Inputs implements LoggedInputs {
+        private static final String[] NAMES = {"Applied", "Current"};
+
+        public double applied;  // duty cycle
+        public double current;  // A
+
+        @Override public String[] names() {
+            return NAMES;
+        }
+
+        @Override public void toArray(double[] v) {
+            v[0] = applied;
+            v[1] = current;
+        }
+
+        @Override public void fromArray(double[] v) {
+            applied = v[0];
+            current = v[1];
+        }
+    }
+
+    default void updateInputs(Inputs inputs) {}
+
+    /** Winch output, -1 to 1. */
+    default void setOutput(double output) {}
+}
@@ -0,0 +1,11 @@
+package frc.robot.subsystems;
+
+import frc.robot.InputsLog;
+
+/** Climber inputs read back from a match log. Outputs go nowhere. */
+public class ClimberIOReplay implements ClimberIO {
+    @Override
+    public void updateInputs(Inputs inputs) {
+        InputsLog.getInstance().replay("Climber", inputs);
+    }
+}
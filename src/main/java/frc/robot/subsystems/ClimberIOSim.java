@@ -0,0 +1,18 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.sim.SparkMaxSim;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants;
+
+/** Desktop simulation of the climber. The winch is not modelled, only the controller output. */
+public class ClimberIOSim extends ClimberIOSparkMax {
+    private final SparkMaxSim motorSim = new SparkMaxSim(climbMotor, DCMotor.getCIM(1));
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        motorSim.iterate(0, RobotController.getBatteryVoltage(), Constants.TimePeriod);
+        super.updateInputs(inputs);
+    }
+}
@@ -0,0 +1,42 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
+import com.revrobotics.spark.config.SparkMaxConfig;
+
+import frc.robot.Constants.ClimberConstants;
+import frc.robot.SparkConfigurator;
+
+/** Climber winch on one Spark MAX driving a brushed motor. */
+public class ClimberIOSparkMax implements ClimberIO {
+    protected final SparkMax climbMotor;
+
+    public ClimberIOSparkMax() {
+        // Set up the climb motor as a brushed motor
+        climbMotor = new SparkMax(ClimberConstants.CLIMBER_MOTOR_ID, MotorType.kBrushed);
+
+        // Long CAN timeout, see SparkConfigurator.configure()
+        climbMotor.setCANTimeout(250);
+
+        // Create and apply configuration for climb motor. Voltage compensation helps
+        // the climber behave the same as the battery voltage dips. The current limit
+        // helps prevent breaker trips or burning out the motor in the event it stalls.
+        SparkMaxConfig climbConfig = new SparkMaxConfig();
+        climbConfig.voltageCompensation(ClimberConstants.CLIMBER_MOTOR_VOLTAGE_COMP);
+        climbConfig.smartCurrentLimit(ClimberConstants.CLIMBER_MOTOR_CURRENT_LIMIT);
+        climbConfig.idleMode(IdleMode.kBrake);
+        SparkConfigurator.getInstance().configure("Climber", climbMotor, climbConfig);
+    }
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.applied = climbMotor.getAppliedOutput();
+        inputs.current = climbMotor.getOutputCurrent();
+    }
+
+    @Override
+    public void setOutput(double output) {
+        climbMotor.set(output);
+    }
+}
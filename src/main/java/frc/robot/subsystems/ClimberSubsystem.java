@@ -1,54 +1,43 @@
 package frc.robot.subsystems;
 
-import com.revrobotics.spark.SparkMax;
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
-import com.revrobotics.spark.SparkLowLevel.MotorType;
-import com.revrobotics.spark.config.SparkMaxConfig;
-import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
-
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Constants.ClimberConstants;
+import frc.robot.AllocationMeter;
+import frc.robot.Constants.AllocationConstants;
+import frc.robot.InputsLog;
+import frc.robot.TieredScheduler;
 
 public class ClimberSubsystem extends SubsystemBase {
 
-    private final SparkMax climbMotor;
+    private final ClimberIO io;
+    private final ClimberIO.Inputs inputs = new ClimberIO.Inputs();
+    private final AllocationMeter.HotPath hotPath =
+        AllocationMeter.getInstance().hotPath("Climber", AllocationConstants.CLIMBER_PERIODIC);
 
     /**
      * This subsytem that controls the climber.
+     *
+     * @param io the climber hardware, simulation or replay
      */
-    public ClimberSubsystem () {
-
-    // Set up the climb motor as a brushless motor
-    climbMotor = new SparkMax(ClimberConstants.CLIMBER_MOTOR_ID, MotorType.kBrushed);
-
-    // Set can timeout. Because this project only sets parameters once on
-    // construction, the timeout can be long without blocking robot operation. Code
-    // which sets or gets parameters during operation may need a shorter timeout.
-    climbMotor.setCANTimeout(250);
-
-    // Create and apply configuration for climb motor. Voltage compensation helps
-    // the climb behave the same as the battery
-    // voltage dips. The current limit helps prevent breaker trips or burning out
-    // the motor in the event the climb stalls.
-    SparkMaxConfig climbConfig = new SparkMaxConfig();
-    climbConfig.voltageCompensation(ClimberConstants.CLIMBER_MOTOR_VOLTAGE_COMP);
-    climbConfig.smartCurrentLimit(ClimberConstants.CLIMBER_MOTOR_CURRENT_LIMIT);
-    climbConfig.idleMode(IdleMode.kBrake);
-    climbMotor.configure(climbConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+    public ClimberSubsystem (ClimberIO io) {
+        this.io = io;
+        // Nothing here closes a loop on the inputs, they are only logged
+        TieredScheduler.getInstance().add("Climber", TieredScheduler.Tier.BACKGROUND, this::update);
     }
 
-    @Override
-    public void periodic() {
+    private void update() {
+        io.updateInputs(inputs);
+        hotPath.begin();
+        InputsLog.getInstance().record("Climber", inputs);
+        hotPath.end();
     }
 
     /**
      * Use to run the climber, can be set to run from 100% to -100%.
      * Keep in mind that the direction changes based on which way the winch is wound.
-     * 
+     *
      * @param speed motor speed from -1.0 to 1, with 0 stopping it
      */
     public void runClimber(double speed){
-        climbMotor.set(speed);
+        io.setOutput(speed);
     }
 }
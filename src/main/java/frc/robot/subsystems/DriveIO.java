@@ -0,0 +1,73 @@
+package frc.robot.subsystems;
+
+import frc.robot.LoggedInputs;
+
+/**
+ * Hardware seam of the drive. DriveSubsystem only talks to the motors and sensors through
+ * this interface, so the same control code runs on the robot, in the simulator and
+ * against a recorded match log.
+ */
+public interface DriveIO {
+
+    /** Everything the drive reads from the hardware, updated once per cycle. */
+    class Inputs implements LoggedInputs {
+        private static final String[] NAMES = {"LeftPosition", "RightPosition", "LeftVelocity", "RightVelocity",
+            "LeftApplied", "RightApplied", "Current", "GyroYaw", "Temperature",
+            "GyroConnected"};
+
+        public double leftPosition;   // m
+        public double rightPosition;  // m
+        public double leftVelocity;   // m/s
+        public double rightVelocity;  // m/s
+        public double leftApplied;    // duty cycle
+        public double rightApplied;   // duty cycle
+        public double current;        // A, all four motors
+        public double gyroYaw;        // rad, counter-clockwise positive
+        public double temperature;    // C, the hottest motor as reported by its controller
+        public boolean gyroConnected;
+
+        @Override public String[] names() {
+            return NAMES;
+        }
+
+        @Override public void toArray(double[] v) {
+            v[0] = leftPosition;
+            v[1] = rightPosition;
+            v[2] = leftVelocity;
+            v[3] = rightVelocity;
+            v[4] = leftApplied;
+            v[5] = rightApplied;
+            v[6] = current;
+            v[7] = gyroYaw;
+            v[8] = temperature;
+            v[9] = gyroConnected ? 1 : 0;
+        }
+
+        @Override public void fromArray(double[] v) {
+            leftPosition = v[0];
+            rightPosition = v[1];
+            leftVelocity = v[2];
+            rightVelocity = v[3];
+            leftApplied = v[4];
+            rightApplied = v[5];
+            current = v[6];
+            gyroYaw = v[7];
+            temperature = v[8];
+            gyroConnected = v[9] != 0;
+        }
+    }
+
+    default void updateInputs(Inputs inputs) {}
+
+    /** Open-loop output of the left side, -1 to 1, forwards positive. */
+    default void setLeftOutput(double output) {}
+
+    /** Open-loop output of the right side, -1 to 1, forwards positive. */
+    default void setRightOutput(double output) {}
+
+    /** Runs the velocity loops at the given wheel speeds in m/s, with feedforward in volts. */
+    default void setVelocity(double left, double right, double leftFF, double rightFF) {}
+
+    /** Smart current limit of every drive motor, in amps. */
+    default void setCurrentLimit(int amps) {}
+}
@@ -0,0 +1,11 @@
+package frc.robot.subsystems;
+
+import frc.robot.InputsLog;
+
+/** Drive inputs read back from a match log. Outputs go nowhere. */
+public class DriveIOReplay implements DriveIO {
+    @Override
+    public void updateInputs(Inputs inputs) {
+        InputsLog.getInstance().replay("Drive", inputs);
+    }
+}
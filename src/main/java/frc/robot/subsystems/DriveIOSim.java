@@ -0,0 +1,35 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.sim.SparkMaxSim;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.ADXRS450_GyroSim;
+import edu.wpi.first.wpilibj.simulation.DifferentialDrivetrainSim;
+import frc.robot.Constants;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Desktop simulation of the drive: the Spark MAX code runs against REV's simulated
+ * controllers, and a drivetrain model moves the wheels and the gyro once per cycle.
+ */
+public class DriveIOSim extends DriveIOSparkMax {
+    private final DifferentialDrivetrainSim drivetrainSim = new DifferentialDrivetrainSim(DCMotor.getNEO(2),
+        DriveConstants.GEAR_RATIO, DriveConstants.MOI, DriveConstants.MASS, DriveConstants.WHEEL_DIAMETER / 2,
+        DriveConstants.TRACK_WIDTH, null);
+    private final ADXRS450_GyroSim gyroSim = new ADXRS450_GyroSim(gyro);
+    private final SparkMaxSim leftSim = new SparkMaxSim(leftLeader, DCMotor.getNEO(2));
+    private final SparkMaxSim rightSim = new SparkMaxSim(rightLeader, DCMotor.getNEO(2));
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        double vbus = RobotController.getBatteryVoltage();
+        drivetrainSim.setInputs(leftSim.getAppliedOutput() * vbus, rightSim.getAppliedOutput() * vbus);
+        drivetrainSim.update(Constants.TimePeriod);
+        leftSim.iterate(drivetrainSim.getLeftVelocityMetersPerSecond(), vbus, Constants.TimePeriod);
+        rightSim.iterate(drivetrainSim.getRightVelocityMetersPerSecond(), vbus, Constants.TimePeriod);
+        // The gyro reads clockwise positive
+        gyroSim.setAngle(-drivetrainSim.getHeading().getDegrees());
+        super.updateInputs(inputs);
+    }
+}
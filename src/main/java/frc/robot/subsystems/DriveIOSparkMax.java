@@ -0,0 +1,127 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.ClosedLoopSlot;
+import com.revrobotics.spark.SparkBase.ControlType;
+import com.revrobotics.spark.SparkClosedLoopController;
+import com.revrobotics.spark.SparkClosedLoopController.ArbFFUnits;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.config.SparkMaxConfig;
+
+import edu.wpi.first.wpilibj.ADXRS450_Gyro;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.SparkConfigurator;
+
+/**
+ * Drive on four Spark MAX controllers (leader and follower per side) and an ADXRS450 gyro on
+ * the roboRIO's onboard SPI port. Without the gyro the heading comes from the encoders.
+ */
+public class DriveIOSparkMax implements DriveIO {
+    protected final SparkMax leftLeader;
+    protected final SparkMax leftFollower;
+    protected final SparkMax rightLeader;
+    protected final SparkMax rightFollower;
+
+    private final RelativeEncoder leftEncoder;
+    private final RelativeEncoder rightEncoder;
+    private final SparkClosedLoopController leftController;
+    private final SparkClosedLoopController rightController;
+
+    protected final ADXRS450_Gyro gyro = new ADXRS450_Gyro();
+
+    public DriveIOSparkMax() {
+        // create brushed motors for drive
+        leftLeader = new SparkMax(DriveConstants.LEFT_LEADER_ID, MotorType.kBrushless);
+        leftFollower = new SparkMax(DriveConstants.LEFT_FOLLOWER_ID, MotorType.kBrushless);
+        rightLeader = new SparkMax(DriveConstants.RIGHT_LEADER_ID, MotorType.kBrushless);
+        rightFollower = new SparkMax(DriveConstants.RIGHT_FOLLOWER_ID, MotorType.kBrushless);
+
+        leftEncoder = leftLeader.getEncoder();
+        rightEncoder = rightLeader.getEncoder();
+        leftController = leftLeader.getClosedLoopController();
+        rightController = rightLeader.getClosedLoopController();
+
+        // Long CAN timeout, see SparkConfigurator.configure()
+        leftLeader.setCANTimeout(250);
+        rightLeader.setCANTimeout(250);
+        leftFollower.setCANTimeout(250);
+        rightFollower.setCANTimeout(250);
+
+        // Create the configuration to apply to motors. Voltage compensation
+        // helps the robot perform more similarly on different
+        // battery voltages (at the cost of a little bit of top speed on a fully charged
+        // battery). The current limit helps prevent tripping
+        // breakers.
+        SparkMaxConfig config = new SparkMaxConfig();
+        config.voltageCompensation(DriveConstants.DRIVE_MOTOR_VOLTAGE_COMP);
+        config.smartCurrentLimit(DriveConstants.DRIVE_MOTOR_CURRENT_LIMIT);
+
+        // Encoders report wheel meters and m/s, so the velocity loop works in m/s. The loop only
+        // gets a P gain, the feedforward is passed in with every setpoint.
+        config.encoder
+            .positionConversionFactor(DriveConstants.POSITION_FACTOR)
+            .velocityConversionFactor(DriveConstants.VELOCITY_FACTOR);
+        config.closedLoop.pid(DriveConstants.kP_VEL, 0, 0, ClosedLoopSlot.kSlot0);
+
+        // Set configuration to follow leader and then apply it to corresponding
+        // follower. Resetting in case a new controller is swapped
+        // in and persisting in case of a controller reset due to breaker trip.
+        // The configurator copies the config, so it can be modified between calls.
+        SparkConfigurator configurator = SparkConfigurator.getInstance();
+        config.follow(leftLeader);
+        configurator.configure("Drive Left Follower", leftFollower, config);
+        config.follow(rightLeader);
+        configurator.configure("Drive Right Follower", rightFollower, config);
+
+        // Remove following, then apply config to right leader
+        config.disableFollowerMode();
+        configurator.configure("Drive Right", rightLeader, config);
+        // Set conifg to inverted and then apply to left leader. Set Left side inverted
+        // so that postive values drive both sides forward
+        config.inverted(true);
+        configurator.configure("Drive Left", leftLeader, config);
+    }
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.leftPosition = leftEncoder.getPosition();
+        inputs.rightPosition = rightEncoder.getPosition();
+        inputs.leftVelocity = leftEncoder.getVelocity();
+        inputs.rightVelocity = rightEncoder.getVelocity();
+        inputs.leftApplied = leftLeader.getAppliedOutput();
+        inputs.rightApplied = rightLeader.getAppliedOutput();
+        inputs.current = leftLeader.getOutputCurrent() + leftFollower.getOutputCurrent()
+            + rightLeader.getOutputCurrent() + rightFollower.getOutputCurrent();
+        inputs.temperature = Math.max(Math.max(leftLeader.getMotorTemperature(), leftFollower.getMotorTemperature()),
+            Math.max(rightLeader.getMotorTemperature(), rightFollower.getMotorTemperature()));
+        // The gyro reads clockwise positive
+        inputs.gyroYaw = -Math.toRadians(gyro.getAngle());
+        inputs.gyroConnected = gyro.isConnected();
+    }
+
+    @Override
+    public void setLeftOutput(double output) {
+        leftLeader.set(output);
+    }
+
+    @Override
+    public void setRightOutput(double output) {
+        rightLeader.set(output);
+    }
+
+    @Override
+    public void setVelocity(double left, double right, double leftFF, double rightFF) {
+        leftController.setReference(left, ControlType.kVelocity, ClosedLoopSlot.kSlot0, leftFF, ArbFFUnits.kVoltage);
+        rightController.setReference(right, ControlType.kVelocity, ClosedLoopSlot.kSlot0, rightFF, ArbFFUnits.kVoltage);
+    }
+
+    @Override
+    public void setCurrentLimit(int amps) {
+        SparkConfigurator configurator = SparkConfigurator.getInstance();
+        configurator.setCurrentLimit(leftLeader, amps);
+        configurator.setCurrentLimit(leftFollower, amps);
+        configurator.setCurrentLimit(rightLeader, amps);
+        configurator.setCurrentLimit(rightFollower, amps);
+    }
+}
@@ -4,74 +4,192 @@
 
 package frc.robot.subsystems;
 
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
-import com.revrobotics.spark.SparkLowLevel.MotorType;
-import com.revrobotics.spark.SparkMax;
-import com.revrobotics.spark.config.SparkMaxConfig;
-
-
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.estimator.DifferentialDrivePoseEstimator;
+import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.StructLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.drive.DifferentialDrive;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.AllocationMeter;
+import frc.robot.Constants;
+import frc.robot.Constants.AllocationConstants;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.FlightRecorder;
+import frc.robot.InputsLog;
+import frc.robot.PowerManager;
+import frc.robot.WarmUp;
 
-public class DriveSubsystem extends SubsystemBase {
-  private final SparkMax leftLeader;
-  private final SparkMax leftFollower;
-  private final SparkMax rightLeader;
-  private final SparkMax rightFollower;
+public class DriveSubsystem extends SubsystemBase implements PowerManager.Load {
+  private final DriveIO io;
+  private final DriveIO.Inputs inputs = new DriveIO.Inputs();
+  private final AllocationMeter.HotPath hotPath =
+      AllocationMeter.getInstance().hotPath("Drive", AllocationConstants.DRIVE_PERIODIC);
 
   private final DifferentialDrive drive;
 
+  private final SimpleMotorFeedforward feedforward =
+      new SimpleMotorFeedforward(DriveConstants.kS, DriveConstants.kV, DriveConstants.kA, Constants.TimePeriod);
+  // Rate limits on the chassis commands keep the wheels from slipping when accelerating
+  private final SlewRateLimiter speedLimiter = new SlewRateLimiter(DriveConstants.MAX_ACCEL);
+  private final SlewRateLimiter turnLimiter = new SlewRateLimiter(DriveConstants.MAX_ANGULAR_ACCEL);
+
+  // Last wheel speed setpoints, in m/s, for the acceleration feedforward
+  private double leftSetpoint = 0;
+  private double rightSetpoint = 0;
+  private boolean velocityMode = false;
+
+  // Output scale from the power manager, the thermal derate. DifferentialDrive applies it to
+  // the open-loop outputs, driveWheelSpeeds() to the wheel speeds.
+  private double outputScale = 1;
+
+  // Odometry: encoders fused with the gyro heading, updated once per cycle in periodic()
+  private final DifferentialDriveKinematics kinematics = new DifferentialDriveKinematics(DriveConstants.TRACK_WIDTH);
+  private final DifferentialDrivePoseEstimator poseEstimator;
+  private Pose2d pose = new Pose2d();
+  private double poseX = 0;
+  private double poseY = 0;
+  private double heading = 0;
+
+  // Yaw handed to the estimator, in rad. It follows the gyro while it is connected and the
+  // wheel encoders while it is not, without a jump when switching.
+  private double yaw;
+  private double lastGyroYaw;
+  private double lastLeftPosition;
+  private double lastRightPosition;
+  private boolean gyroConnected;
+
+  // Log entries for the outputs, the inputs are logged by InputsLog
+  private final DoubleLogEntry logLeftSetpoint;
+  private final DoubleLogEntry logRightSetpoint;
+  private final StructLogEntry<Pose2d> logPose;
+
   /**
    * The subsystem used to drive the robot.
+   *
+   * @param io the drive hardware, real, simulated or replayed
    */
-  public DriveSubsystem() {
-    // create brushed motors for drive
-    leftLeader = new SparkMax(DriveConstants.LEFT_LEADER_ID, MotorType.kBrushless);
-    leftFollower = new SparkMax(DriveConstants.LEFT_FOLLOWER_ID, MotorType.kBrushless);
-    rightLeader = new SparkMax(DriveConstants.RIGHT_LEADER_ID, MotorType.kBrushless);
-    rightFollower = new SparkMax(DriveConstants.RIGHT_FOLLOWER_ID, MotorType.kBrushless);
+  public DriveSubsystem(DriveIO io) {
+    this(io, false);
+  }
+
+  /**
+   * @param io the drive hardware, real, simulated or replayed
+   * @param warmUp an instance for the JIT warm-up: not registered with the scheduler, logs
+   *     nowhere and without motor safety, as nothing feeds it once the robot is enabled
+   */
+  public DriveSubsystem(DriveIO io, boolean warmUp) {
+    this.io = io;
+    if (warmUp)
+      CommandScheduler.getInstance().unregisterSubsystem(this);
+    io.updateInputs(inputs);
 
     // set up differential drive class
-    drive = new DifferentialDrive(leftLeader, rightLeader);
-
-    // Set CAN timeout. Because this project only sets parameters once on
-    // construction, the timeout can be long without blocking robot operation. Code
-    // which sets or gets parameters during operation may need a shorter timeout.
-    leftLeader.setCANTimeout(250);
-    rightLeader.setCANTimeout(250);
-    leftFollower.setCANTimeout(250);
-    rightFollower.setCANTimeout(250);
-
-    // Create the configuration to apply to motors. Voltage compensation
-    // helps the robot perform more similarly on different
-    // battery voltages (at the cost of a little bit of top speed on a fully charged
-    // battery). The current limit helps prevent tripping
-    // breakers.
-    SparkMaxConfig config = new SparkMaxConfig();
-    config.voltageCompensation(DriveConstants.DRIVE_MOTOR_VOLTAGE_COMP);
-    config.smartCurrentLimit(DriveConstants.DRIVE_MOTOR_CURRENT_LIMIT);
-
-    // Set configuration to follow leader and then apply it to corresponding
-    // follower. Resetting in case a new controller is swapped
-    // in and persisting in case of a controller reset due to breaker trip
-    config.follow(leftLeader);
-    leftFollower.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-    config.follow(rightLeader);
-    rightFollower.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-
-    // Remove following, then apply config to right leader
-    config.disableFollowerMode();
-    rightLeader.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-    // Set conifg to inverted and then apply to left leader. Set Left side inverted
-    // so that postive values drive both sides forward
-    config.inverted(true);
-    leftLeader.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+    drive = new DifferentialDrive(io::setLeftOutput, io::setRightOutput);
+    if (warmUp)
+      drive.setSafetyEnabled(false);
+
+    yaw = inputs.gyroYaw;
+    lastGyroYaw = inputs.gyroYaw;
+    lastLeftPosition = inputs.leftPosition;
+    lastRightPosition = inputs.rightPosition;
+    gyroConnected = inputs.gyroConnected;
+    poseEstimator = new DifferentialDrivePoseEstimator(kinematics, new Rotation2d(yaw),
+        inputs.leftPosition, inputs.rightPosition, pose);
+
+    DataLog log = warmUp ? WarmUp.discardLog() : DataLogManager.getLog();
+    logLeftSetpoint = new DoubleLogEntry(log, "/Drive/LeftSetpoint");
+    logRightSetpoint = new DoubleLogEntry(log, "/Drive/RightSetpoint");
+    logPose = StructLogEntry.create(log, "/Drive/Pose", Pose2d.struct);
+    if (!warmUp) {
+      FlightRecorder recorder = FlightRecorder.getInstance();
+      recorder.addSignal("Drive", "LeftSetpoint", () -> leftSetpoint);
+      recorder.addSignal("Drive", "RightSetpoint", () -> rightSetpoint);
+      recorder.addSignal("Drive", "PoseX", () -> poseX);
+      recorder.addSignal("Drive", "PoseY", () -> poseY);
+      recorder.addSignal("Drive", "Heading", () -> heading);
+    }
   }
 
   @Override
   public void periodic() {
+    io.updateInputs(inputs);
+    hotPath.begin();
+    InputsLog.getInstance().record("Drive", inputs);
+
+    updateYaw();
+    pose = poseEstimator.updateWithTime(Timer.getFPGATimestamp(), new Rotation2d(yaw),
+        inputs.leftPosition, inputs.rightPosition);
+    poseX = pose.getX();
+    poseY = pose.getY();
+    heading = pose.getRotation().getRadians();
+
+    if (velocityMode) {
+      logLeftSetpoint.append(leftSetpoint);
+      logRightSetpoint.append(rightSetpoint);
+    }
+    logPose.append(pose);
+    hotPath.end();
+  }
+
+  // Adds the turn since the last cycle, from the gyro or, without it, from the wheels
+  private void updateYaw() {
+    if (inputs.gyroConnected && gyroConnected)
+      yaw += inputs.gyroYaw - lastGyroYaw;
+    else
+      yaw += (inputs.rightPosition - lastRightPosition - inputs.leftPosition + lastLeftPosition)
+          / DriveConstants.TRACK_WIDTH;
+    if (inputs.gyroConnected != gyroConnected)
+      System.out.println(inputs.gyroConnected ? "DRIVE, gyro connected" : "DRIVE, gyro lost, heading from encoders");
+    gyroConnected = inputs.gyroConnected;
+    lastGyroYaw = inputs.gyroYaw;
+    lastLeftPosition = inputs.leftPosition;
+    lastRightPosition = inputs.rightPosition;
+  }
+
+  /** Latest pose estimate. Updated once per cycle, the same object is returned until the next update. */
+  public Pose2d getPose() {
+    return pose;
+  }
+
+  /** Field X of the latest pose estimate, in m. */
+  public double getX() {
+    return poseX;
+  }
+
+  /** Field Y of the latest pose estimate, in m. */
+  public double getY() {
+    return poseY;
+  }
+
+  /** Heading of the latest pose estimate, in radians counter-clockwise. */
+  public double getHeading() {
+    return heading;
+  }
+
+  /** Straight-line distance from the given field point to the current pose, in m. */
+  public double getDistanceFrom(double x, double y) {
+    return Math.hypot(poseX - x, poseY - y);
+  }
+
+  public DifferentialDriveKinematics getKinematics() {
+    return kinematics;
+  }
+
+  /** Resets the pose estimate, e.g. to the known starting position of an auto. */
+  public void resetPose(Pose2d newPose) {
+    poseEstimator.resetPosition(new Rotation2d(yaw), inputs.leftPosition, inputs.rightPosition, newPose);
+    pose = newPose;
+    poseX = newPose.getX();
+    poseY = newPose.getY();
+    heading = newPose.getRotation().getRadians();
   }
   /**
    *  Use this to control your drive train, with one axis of the controller moving the robot
@@ -86,9 +204,95 @@ public class DriveSubsystem extends SubsystemBase {
    * @param squared do you square the inputs from the controller
    */
   public void driveArcade(double xSpeed, double zRotation, boolean squared) {
+    leaveVelocityMode();
     drive.arcadeDrive(xSpeed, zRotation, squared);
   }
 
+  /**
+   * Closed-loop version of driveArcade. The inputs are fractions of the top speed, as they come
+   * from the joystick, and are turned into wheel velocities so the robot moves the same on a full
+   * or a tired battery. Acceleration is limited to what the wheels can take without slipping.
+   *
+   * @param xSpeed fraction of DriveConstants.MAX_SPEED, forwards positive
+   * @param zRotation fraction of DriveConstants.MAX_ANGULAR_SPEED, counter-clockwise positive
+   * @param squared do you square the inputs from the controller
+   */
+  public void driveArcadeVelocity(double xSpeed, double zRotation, boolean squared) {
+    if (squared) {
+      xSpeed = Math.copySign(xSpeed * xSpeed, xSpeed);
+      zRotation = Math.copySign(zRotation * zRotation, zRotation);
+    }
+    enterVelocityMode();
+    double speed = speedLimiter.calculate(xSpeed * DriveConstants.MAX_SPEED);
+    double turn = turnLimiter.calculate(zRotation * DriveConstants.MAX_ANGULAR_SPEED);
+    driveChassis(speed, turn);
+  }
+
+  /**
+   * Drives the robot at the given chassis speed and turn rate without any acceleration limit.
+   * When one side would exceed the top speed, both are scaled down to keep the curvature.
+   *
+   * @param speed forward speed in m/s
+   * @param turn turn rate in rad/s, counter-clockwise positive
+   */
+  public void driveChassis(double speed, double turn) {
+    double left = speed - turn * DriveConstants.TRACK_WIDTH / 2;
+    double right = speed + turn * DriveConstants.TRACK_WIDTH / 2;
+    double max = Math.max(Math.abs(left), Math.abs(right));
+    if (max > DriveConstants.MAX_SPEED) {
+      left *= DriveConstants.MAX_SPEED / max;
+      right *= DriveConstants.MAX_SPEED / max;
+    }
+    driveWheelSpeeds(left, right);
+  }
+
+  /**
+   * Runs the Spark MAX velocity loops at the given wheel speeds with the characterized feedforward.
+   * Both are scaled down with the output scale, so a hot drive runs slower in velocity mode too.
+   *
+   * @param leftSpeed left wheel speed in m/s
+   * @param rightSpeed right wheel speed in m/s
+   */
+  public void driveWheelSpeeds(double leftSpeed, double rightSpeed) {
+    enterVelocityMode();
+    leftSpeed *= outputScale;
+    rightSpeed *= outputScale;
+    double leftFF = feedforward.calculateWithVelocities(leftSetpoint, leftSpeed);
+    double rightFF = feedforward.calculateWithVelocities(rightSetpoint, rightSpeed);
+    leftSetpoint = leftSpeed;
+    rightSetpoint = rightSpeed;
+    io.setVelocity(leftSpeed, rightSpeed, leftFF, rightFF);
+    // The motors are not driven through DifferentialDrive here, keep its safety watchdog fed
+    drive.feed();
+  }
+
+  // Start the limiters and feedforward from the actual wheel speeds so switching modes does not jerk
+  private void enterVelocityMode() {
+    if (velocityMode)
+      return;
+    velocityMode = true;
+    double left = inputs.leftVelocity;
+    double right = inputs.rightVelocity;
+    leftSetpoint = left;
+    rightSetpoint = right;
+    speedLimiter.reset((left + right) / 2);
+    turnLimiter.reset((right - left) / DriveConstants.TRACK_WIDTH);
+  }
+
+  private void leaveVelocityMode() {
+    velocityMode = false;
+  }
+
+  /** Left wheel speed in m/s, forwards positive. */
+  public double getLeftVelocity() {
+    return inputs.leftVelocity;
+  }
+
+  /** Right wheel speed in m/s, forwards positive. */
+  public double getRightVelocity() {
+    return inputs.rightVelocity;
+  }
+
   /**
    * Use this to drive the robot, with one stick controlling one 
    * side of the drivetrain and the other stick controlling the other.
@@ -98,6 +302,28 @@ public class DriveSubsystem extends SubsystemBase {
    * @param squared do you square the inputs from the controller 
    */
   public void driveTank(double leftSpeed, double rightSpeed, boolean squared){
+    leaveVelocityMode();
     drive.tankDrive(leftSpeed, rightSpeed, squared);
   }
+
+  @Override
+  public double getOutputCurrent() {
+    return inputs.current;
+  }
+
+  @Override
+  public double getMotorTemperature() {
+    return inputs.temperature;
+  }
+
+  @Override
+  public void setOutputScale(double scale) {
+    outputScale = scale;
+    drive.setMaxOutput(scale);
+  }
+
+  @Override
+  public void setCurrentLimit(int amps) {
+    io.setCurrentLimit(amps);
+  }
 }
\ No newline at end of file
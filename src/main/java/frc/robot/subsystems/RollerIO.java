@@ -0,0 +1,52 @@
+package frc.robot.subsystems;
+
+import frc.robot.LoggedInputs;
+
+/** Hardware seam of the roller, see DriveIO. */
+public interface RollerIO {
+
+    /** Everything the roller reads from the hardware, updated once per cycle. */
+    class Inputs implements LoggedInputs {
+        private static final String[] NAMES = {"Position", "Velocity", "Applied", "AppliedR", "Current", "Temperature"};
+
+        public double position;  // motor rotations
+        public double velocity;  // motor RPM
+        public double applied;   // duty cycle
+        public double appliedR;  // duty cycle of the follower
+        public double current;   // A, both motors
+        public double temperature;  // C, the hotter motor as reported by its controller
+
+        @Override public String[] names() {
+            return NAMES;
+        }
+
+        @Override public void toArray(double[] v) {
+            v[0] = position;
+            v[1] = velocity;
+            v[2] = applied;
+            v[3] = appliedR;
+            v[4] = current;
+            v[5] = temperature;
+        }
+
+        @Override public void fromArray(double[] v) {
+            position = v[0];
+            velocity = v[1];
+            applied = v[2];
+            appliedR = v[3];
+            current = v[4];
+            temperature = v[5];
+        }
+    }
+
+    default void updateInputs(Inputs inputs) {}
+
+    /** Roller output, -1 to 1. */
+    default void setOutput(double output) {}
+
+    /** Sets the encoder reading, in motor rotations. */
+    default void resetPosition(double position) {}
+
+    /** Smart current limit of both roller motors, in amps. */
+    default void setCurrentLimit(int amps) {}
+}
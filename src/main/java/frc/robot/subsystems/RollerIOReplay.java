@@ -0,0 +1,11 @@
+package frc.robot.subsystems;
+
+import frc.robot.InputsLog;
+
+/** Roller inputs read back from a match log. Outputs go nowhere. */
+public class RollerIOReplay implements RollerIO {
+    @Override
+    public void updateInputs(Inputs inputs) {
+        InputsLog.getInstance().replay("Roller", inputs);
+    }
+}
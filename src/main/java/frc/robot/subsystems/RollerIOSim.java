@@ -0,0 +1,26 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.sim.SparkMaxSim;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants;
+import frc.robot.Constants.RollerConstants;
+
+/** Desktop simulation of the roller as a free-spinning flywheel. */
+public class RollerIOSim extends RollerIOSparkMax {
+    private final FlywheelSim rollerSim = new FlywheelSim(
+        LinearSystemId.createFlywheelSystem(DCMotor.getNEO(2), RollerConstants.SIM_MOI, 1.0), DCMotor.getNEO(2));
+    private final SparkMaxSim motorSim = new SparkMaxSim(rollerMotor, DCMotor.getNEO(2));
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        double vbus = RobotController.getBatteryVoltage();
+        rollerSim.setInputVoltage(motorSim.getAppliedOutput() * vbus);
+        rollerSim.update(Constants.TimePeriod);
+        motorSim.iterate(rollerSim.getAngularVelocityRPM(), vbus, Constants.TimePeriod);
+        super.updateInputs(inputs);
+    }
+}
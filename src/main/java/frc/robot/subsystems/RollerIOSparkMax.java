@@ -0,0 +1,66 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
+import com.revrobotics.spark.config.SparkMaxConfig;
+
+import frc.robot.Constants.RollerConstants;
+import frc.robot.SparkConfigurator;
+
+/** Roller on two Spark MAX controllers, the second one following the first inverted. */
+public class RollerIOSparkMax implements RollerIO {
+    protected final SparkMax rollerMotor;
+    protected final SparkMax rollerMotorR;
+    private final RelativeEncoder m_encoder;
+
+    public RollerIOSparkMax() {
+        rollerMotor = new SparkMax(RollerConstants.ROLLER_MOTOR_ID, MotorType.kBrushless);
+        rollerMotorR = new SparkMax(RollerConstants.ROLLER_MOTOR_IDR, MotorType.kBrushless);
+        m_encoder = rollerMotor.getEncoder();
+
+        // Long CAN timeout, see SparkConfigurator.configure()
+        rollerMotor.setCANTimeout(250);
+        rollerMotorR.setCANTimeout(250);
+
+        // Create and apply configuration for roller motor. Voltage compensation helps
+        // the roller behave the same as the battery
+        // voltage dips. The current limit helps prevent breaker trips or burning out
+        // the motor in the event the roller stalls.
+        SparkMaxConfig rollerConfig = new SparkMaxConfig();
+        rollerConfig.voltageCompensation(RollerConstants.ROLLER_MOTOR_VOLTAGE_COMP);
+        rollerConfig.smartCurrentLimit(RollerConstants.ROLLER_MOTOR_CURRENT_LIMIT);
+        rollerConfig.idleMode(IdleMode.kBrake);
+        SparkConfigurator.getInstance().configure("Roller", rollerMotor, rollerConfig);
+
+        rollerConfig.follow(RollerConstants.ROLLER_MOTOR_ID, true);
+        SparkConfigurator.getInstance().configure("Roller R", rollerMotorR, rollerConfig);
+    }
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.position = m_encoder.getPosition();
+        inputs.velocity = m_encoder.getVelocity();
+        inputs.applied = rollerMotor.getAppliedOutput();
+        inputs.appliedR = rollerMotorR.getAppliedOutput();
+        inputs.current = rollerMotor.getOutputCurrent() + rollerMotorR.getOutputCurrent();
+        inputs.temperature = Math.max(rollerMotor.getMotorTemperature(), rollerMotorR.getMotorTemperature());
+    }
+
+    @Override
+    public void setOutput(double output) {
+        rollerMotor.set(output);
+    }
+
+    @Override
+    public void resetPosition(double position) {
+        m_encoder.setPosition(position);
+    }
+
+    @Override
+    public void setCurrentLimit(int amps) {
+        SparkConfigurator.getInstance().setCurrentLimit(rollerMotor, amps);
+        SparkConfigurator.getInstance().setCurrentLimit(rollerMotorR, amps);
+    }
+}
@@ -1,38 +1,47 @@
 package frc.robot.subsystems;
 
-import com.revrobotics.spark.SparkMax;
-import com.revrobotics.spark.SparkMaxAlternateEncoder;
-import com.revrobotics.spark.SparkRelativeEncoder;
 import com.revrobotics.RelativeEncoder;
-import com.revrobotics.spark.SparkBase.ControlType;
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
 import com.revrobotics.spark.SparkLimitSwitch;
-import com.revrobotics.spark.SparkLowLevel.MotorType;
 import com.revrobotics.spark.config.SparkMaxConfig;
-import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
-import com.revrobotics.spark.config.LimitSwitchConfig.Type;
 import com.revrobotics.spark.SparkClosedLoopController;
 //import com.revrobotics.spark.SparkPIDController;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.math.filter.Debouncer;
+import edu.wpi.first.math.filter.Debouncer.DebounceType;
+import edu.wpi.first.math.filter.LinearFilter;
+import edu.wpi.first.math.filter.MedianFilter;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants;
+import frc.robot.Constants.AllocationConstants;
 import frc.robot.Constants.RollerConstants;
-import frc.robot.Constants.ShooterConstants;
+import frc.robot.Constants.TelemetryConstants;
 
+import frc.robot.AllocationMeter;
+import frc.robot.InputsLog;
 import frc.robot.PIDCtrl;
+import frc.robot.PowerManager;
+import frc.robot.Telemetry;
+import frc.robot.WarmUp;
 
-public class RollerSubsystem extends SubsystemBase {
+public class RollerSubsystem extends SubsystemBase implements PowerManager.Load {
 
-    private SparkMax rollerMotor;
-    private SparkMax rollerMotorR;
+    private final RollerIO io;
+    private final RollerIO.Inputs inputs = new RollerIO.Inputs();
+    private final AllocationMeter.HotPath hotPath =
+        AllocationMeter.getInstance().hotPath("Roller", AllocationConstants.ROLLER_PERIODIC);
 //    private final SparkMax upShooterMotor;
     // private SparkMax upShooterMotorR;
     // private SparkMax downShooterMotor;
     // private SparkMax downShooterMotorR;
 
-    private RelativeEncoder m_encoder;
     private RelativeEncoder rollerEncoder;
 
     RelativeEncoder m_alternateEncoder;
@@ -57,18 +66,44 @@ public class RollerSubsystem extends SubsystemBase {
     private final PIDCtrl pidCtrl;
     private double timeDelta;
     private double controlValue;
+
+    // Output cap from the power manager
+    private double outputScale = 1;
+    private double command = 0;
+
+    // Algae detection, see hasGamePiece()
+    private final MedianFilter currentFilter = new MedianFilter(RollerConstants.CURRENT_MEDIAN_TAPS);
+    private final LinearFilter velocityFilter =
+        LinearFilter.singlePoleIIR(RollerConstants.VELOCITY_FILTER_TIME, Constants.TimePeriod);
+    private final Debouncer loadedDebouncer = new Debouncer(RollerConstants.ALGAE_DETECT_TIME, DebounceType.kRising);
+    private final Debouncer freeDebouncer = new Debouncer(RollerConstants.ALGAE_RELEASE_TIME, DebounceType.kRising);
+    private double intakeStart = 0;
+    private boolean gamePiece = false;
+    private boolean holding = false;
+    private double holdPosition = 0;
+
+    // Log entries for the output and the detection, the inputs are logged by InputsLog
+    private final DoubleLogEntry logCommand;
+    private final BooleanLogEntry logGamePiece;
     /**
      * This subsytem that controls the roller.
      */
-    public RollerSubsystem () {
+    public RollerSubsystem (RollerIO io) {
+        this(io, false);
+    }
+
+    /**
+     * @param io the roller hardware, simulation or replay
+     * @param warmUp an instance for the JIT warm-up: not registered with the scheduler, and logs
+     *        nowhere
+     */
+    public RollerSubsystem (RollerIO io, boolean warmUp) {
+        this.io = io;
+        if (warmUp)
+            CommandScheduler.getInstance().unregisterSubsystem(this);
         timeDelta = 0.02;
         controlValue = 0;
 
-    // Set up the roller motor as a brushed motor
-    rollerMotor = new SparkMax(RollerConstants.ROLLER_MOTOR_ID, MotorType.kBrushless);
-    rollerMotorR = new SparkMax(RollerConstants.ROLLER_MOTOR_IDR, MotorType.kBrushless);
-    m_encoder = rollerMotor.getEncoder();
-
     //    upShooterMotor = new SparkMax(ShooterConstants.UP_MOTOR_ID, MotorType.kBrushless);
 
     // upShooterMotorR = new SparkMax(ShooterConstants.UP_MOTOR_IDR, MotorType.kBrushless);
@@ -89,21 +124,10 @@ public class RollerSubsystem extends SubsystemBase {
     
     // closedLoopCtrl = upShooterMotor.getClosedLoopController();
 
-    // Set can timeout. Because this project only sets parameters once on
-    // construction, the timeout can be long without blocking robot operation. Code
-    // which sets or gets parameters during operation may need a shorter timeout.
-    rollerMotor.setCANTimeout(250);
-    rollerMotorR.setCANTimeout(250);
 //    upShooterMotor.setCANTimeout(250);
     //downShooterMotor.setCANTimeout(250);
 
-    // Create and apply configuration for roller motor. Voltage compensation helps
-    // the roller behave the same as the battery
-    // voltage dips. The current limit helps prevent breaker trips or burning out
-    // the motor in the event the roller stalls.
-    SparkMaxConfig rollerConfig = new SparkMaxConfig();
-    rollerConfig.voltageCompensation(RollerConstants.ROLLER_MOTOR_VOLTAGE_COMP);
-    rollerConfig.smartCurrentLimit(RollerConstants.ROLLER_MOTOR_CURRENT_LIMIT);
+    // The motors and their configuration live in RollerIOSparkMax
 
 //    rollerConfig.closedLoop.pid(kP, kI, kD);
 /*
@@ -125,11 +149,6 @@ public class RollerSubsystem extends SubsystemBase {
 
 //    upShooterMotor.configure(rollerConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
 
-    rollerConfig.idleMode(IdleMode.kBrake);
-    rollerMotor.configure(rollerConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-    
-    rollerConfig.follow(RollerConstants.ROLLER_MOTOR_ID, true);
-    rollerMotorR.configure(rollerConfig, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
 
     // m_pidController = new PIDController(kP, kI, kD);
     // //m_pidController.setIZone(kIz);
@@ -143,14 +162,100 @@ public class RollerSubsystem extends SubsystemBase {
         pidCtrl = new PIDCtrl(kP, kI, kD, timeDelta);
 
 //        SmartDashboard.putNumber("Coeff", 0.15);
+
+        DataLog log = warmUp ? WarmUp.discardLog() : DataLogManager.getLog();
+        logCommand = new DoubleLogEntry(log, "/Roller/Command");
+        logGamePiece = new BooleanLogEntry(log, "/Roller/GamePiece");
+        if (!warmUp)
+            Telemetry.getInstance().group("Roller")
+                .signal("command", () -> command, 1, 0.01)
+                .signal("gamePiece", () -> gamePiece ? 1 : 0)
+                .signal("current", () -> inputs.current, TelemetryConstants.SLOW, 0.5)
+                .start();
     }
 
     @Override
     public void periodic() {
+        io.updateInputs(inputs);
+        hotPath.begin();
+        InputsLog.getInstance().record("Roller", inputs);
+        detectGamePiece();
+        if (holding)
+            hold();
+        hotPath.end();
+    }
+
+    /**
+     * Algae is in when the rollers pull it in but are held back by it: more current than
+     * spinning free takes and far below the speed the output would give, for
+     * ALGAE_DETECT_TIME. The start of the intake is ignored, the rollers look the same while
+     * they spin up. It is out again once the rollers spin close to free speed for
+     * ALGAE_RELEASE_TIME, whichever way they are driven: it was shot or ejected.
+     */
+    private void detectGamePiece() {
+        double current = currentFilter.calculate(inputs.current);
+        double speed = Math.abs(velocityFilter.calculate(inputs.velocity));
+        double freeSpeed = Math.abs(command) * RollerConstants.FREE_SPEED;
+
+        boolean intaking = command > 0 && Timer.getFPGATimestamp() - intakeStart > RollerConstants.ALGAE_SPINUP;
+        boolean loaded = intaking && current > RollerConstants.ALGAE_CURRENT
+            && speed < RollerConstants.ALGAE_STALL * freeSpeed;
+        boolean free = freeSpeed > 0 && speed > RollerConstants.ALGAE_FREE * freeSpeed;
+
+        boolean had = gamePiece;
+        if (loadedDebouncer.calculate(loaded))
+            gamePiece = true;
+        if (freeDebouncer.calculate(free))
+            gamePiece = false;
+        if (gamePiece != had)
+            logGamePiece.append(gamePiece);
+        if (!gamePiece && holding)
+            runRoller(0);
+    }
+
+    /** True while algae is in the rollers. */
+    public boolean hasGamePiece() {
+        return gamePiece;
+    }
+
+    /**
+     * Keeps the algae in until the rollers are run again. The rollers hold their position with
+     * a small output, pushing back harder only when the algae slips out. Like every output it is
+     * scaled down as the motors heat up, see ThermalMonitor.
+     */
+    public void holdGamePiece() {
+        holdPosition = inputs.position;
+        holding = true;
+        hold();
+    }
+
+    private void hold() {
+        double output = RollerConstants.ROLLER_ALGAE_HOLD + RollerConstants.HOLD_KP * (holdPosition - inputs.position);
+        output(MathUtil.clamp(output, 0, RollerConstants.HOLD_MAX));
+    }
+
+    @Override
+    public double getOutputCurrent() {
+        return inputs.current;
+    }
+
+    @Override
+    public double getMotorTemperature() {
+        return inputs.temperature;
+    }
+
+    @Override
+    public void setOutputScale(double scale) {
+        outputScale = scale;
+    }
+
+    @Override
+    public void setCurrentLimit(int amps) {
+        io.setCurrentLimit(amps);
     }
 
     public void init() {
-        m_encoder.setPosition(0);
+        io.resetPosition(0);
         // m_pidController.reset();
         // m_pidController.setSetpoint(10);
         pidCtrl.reset();
@@ -158,7 +263,9 @@ public class RollerSubsystem extends SubsystemBase {
     }
 
     public void stop() {
-        rollerMotor.set(0);
+        io.setOutput(0);
+        command = 0;
+        holding = false;
 //        upShooterMotor.set(0);
         //upShooterMotor.stopMotor();
     }
@@ -170,8 +277,16 @@ public class RollerSubsystem extends SubsystemBase {
      * @param speedmotor speed from -1.0 to 1, with 0 stopping it
      */
     public void runRoller(double speed){
-        rollerMotor.set(speed);
-        System.out.println("Roller: " + rollerMotor.getAppliedOutput() + " - " + rollerMotorR.getAppliedOutput());
+        output(speed);
+        holding = false;
+    }
+
+    private void output(double speed) {
+        if (speed > 0 && command <= 0)
+            intakeStart = Timer.getFPGATimestamp();
+        command = speed * outputScale;
+        io.setOutput(command);
+        logCommand.append(command);
     }
 
     // public void runShooter(double speed) {
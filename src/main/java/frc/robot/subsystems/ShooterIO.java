@@ -0,0 +1,82 @@
+package frc.robot.subsystems;
+
+import frc.robot.LoggedInputs;
+
+/** Hardware seam of the shooter, see DriveIO. */
+public interface ShooterIO {
+
+    /** Everything the shooter reads from the hardware, updated once per cycle. */
+    class Inputs implements LoggedInputs {
+        private static final String[] NAMES = {"UpPosition", "UpVelocity", "DownVelocity", "DownRVelocity",
+            "UpApplied", "DownApplied", "DownRApplied", "UpCurrent", "DownCurrent", "DownRCurrent", "DownFollowerActive",
+            "Temperature"};
+
+        public double upPosition;      // motor rotations
+        public double upVelocity;      // RPM
+        public double downVelocity;    // RPM
+        public double downRVelocity;   // RPM
+        public double upApplied;       // duty cycle
+        public double downApplied;     // duty cycle
+        public double downRApplied;    // duty cycle
+        public double upCurrent;       // A
+        public double downCurrent;     // A
+        public double downRCurrent;    // A
+        // True when the second lower motor follows the first in hardware
+        public boolean downFollowerActive;
+        public double temperature;     // C, the hottest motor as reported by its controller
+
+        @Override public String[] names() {
+            return NAMES;
+        }
+
+        @Override public void toArray(double[] v) {
+            v[0] = upPosition;
+            v[1] = upVelocity;
+            v[2] = downVelocity;
+            v[3] = downRVelocity;
+            v[4] = upApplied;
+            v[5] = downApplied;
+            v[6] = downRApplied;
+            v[7] = upCurrent;
+            v[8] = downCurrent;
+            v[9] = downRCurrent;
+            v[10] = downFollowerActive ? 1 : 0;
+            v[11] = temperature;
+        }
+
+        @Override public void fromArray(double[] v) {
+            upPosition = v[0];
+            upVelocity = v[1];
+            downVelocity = v[2];
+            downRVelocity = v[3];
+            upApplied = v[4];
+            downApplied = v[5];
+            downRApplied = v[6];
+            upCurrent = v[7];
+            downCurrent = v[8];
+            downRCurrent = v[9];
+            downFollowerActive = v[10] != 0;
+            temperature = v[11];
+        }
+    }
+
+    default void updateInputs(Inputs inputs) {}
+
+    /** Upper wheel output, -1 to 1. */
+    default void setUp(double output) {}
+
+    /** Lower wheel output, -1 to 1. */
+    default void setDown(double output) {}
+
+    /**
+     * Output of the second lower motor alone, in the sense of setDown(), -1 to 1. Only in
+     * diagnostic mode, otherwise it follows the first one.
+     */
+    default void setDownR(double output) {}
+
+    /** Zeroes the wheel encoders. */
+    default void resetPositions() {}
+
+    /** Smart current limit of every shooter motor, in amps. */
+    default void setCurrentLimit(int amps) {}
+}
@@ -0,0 +1,11 @@
+package frc.robot.subsystems;
+
+import frc.robot.InputsLog;
+
+/** Shooter inputs read back from a match log. Outputs go nowhere. */
+public class ShooterIOReplay implements ShooterIO {
+    @Override
+    public void updateInputs(Inputs inputs) {
+        InputsLog.getInstance().replay("Shooter", inputs);
+    }
+}
@@ -0,0 +1,36 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.sim.SparkMaxSim;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants;
+import frc.robot.Constants.ShooterConstants;
+
+/** Desktop simulation of the shooter wheels as two flywheels. */
+public class ShooterIOSim extends ShooterIOSparkMax {
+    private final FlywheelSim upSim = new FlywheelSim(
+        LinearSystemId.createFlywheelSystem(DCMotor.getNEO(1), ShooterConstants.SIM_MOI, 1.0), DCMotor.getNEO(1));
+    private final FlywheelSim downSim = new FlywheelSim(
+        LinearSystemId.createFlywheelSystem(DCMotor.getNEO(2), ShooterConstants.SIM_MOI, 1.0), DCMotor.getNEO(2));
+    private final SparkMaxSim upMotorSim = new SparkMaxSim(upShooterMotor, DCMotor.getNEO(1));
+    private final SparkMaxSim downMotorSim = new SparkMaxSim(downShooterMotor, DCMotor.getNEO(1));
+    private final SparkMaxSim downMotorSimR = new SparkMaxSim(downShooterMotorR, DCMotor.getNEO(1));
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        double vbus = RobotController.getBatteryVoltage();
+        upSim.setInputVoltage(upMotorSim.getAppliedOutput() * vbus);
+        // Both lower motors drive the same wheel, in diagnostic mode with outputs of their own
+        downSim.setInputVoltage((downMotorSim.getAppliedOutput() - downMotorSimR.getAppliedOutput()) / 2 * vbus);
+        upSim.update(Constants.TimePeriod);
+        downSim.update(Constants.TimePeriod);
+        upMotorSim.iterate(upSim.getAngularVelocityRPM(), vbus, Constants.TimePeriod);
+        downMotorSim.iterate(downSim.getAngularVelocityRPM(), vbus, Constants.TimePeriod);
+        // The second lower motor is mounted the other way round
+        downMotorSimR.iterate(-downSim.getAngularVelocityRPM(), vbus, Constants.TimePeriod);
+        super.updateInputs(inputs);
+    }
+}
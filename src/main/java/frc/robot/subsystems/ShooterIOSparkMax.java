@@ -0,0 +1,133 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.SparkLowLevel.MotorType;
+import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
+import com.revrobotics.spark.config.SparkMaxConfig;
+
+import frc.robot.Constants;
+import frc.robot.Constants.RollerConstants;
+import frc.robot.Constants.ShooterConstants;
+import frc.robot.SparkConfigurator;
+
+/** Shooter on three Spark MAX controllers: one upper wheel motor and a pair on the lower wheel. */
+public class ShooterIOSparkMax implements ShooterIO {
+    protected final SparkMax upShooterMotor;
+    protected final SparkMax downShooterMotor;
+    protected final SparkMax downShooterMotorR;
+
+    private final RelativeEncoder upEncoder;
+    private final RelativeEncoder downEncoder;
+    private final RelativeEncoder downEncoderR;
+
+    // True when downShooterMotorR is confirmed to follow downShooterMotor in hardware,
+    // false when it has to be driven directly (diagnostic mode or failed verification)
+    private volatile boolean downFollowerActive = false;
+
+    public ShooterIOSparkMax() {
+        upShooterMotor = new SparkMax(ShooterConstants.UP_MOTOR_ID, MotorType.kBrushless);
+        downShooterMotor = new SparkMax(ShooterConstants.DOWN_MOTOR_ID, MotorType.kBrushless);
+        downShooterMotorR = new SparkMax(ShooterConstants.DOWN_MOTOR_IDR, MotorType.kBrushless);
+
+        upEncoder = upShooterMotor.getEncoder();
+        downEncoder = downShooterMotor.getEncoder();
+        downEncoderR = downShooterMotorR.getEncoder();
+
+        // Long CAN timeout, see SparkConfigurator.configure()
+        upShooterMotor.setCANTimeout(250);
+        downShooterMotor.setCANTimeout(250);
+        downShooterMotorR.setCANTimeout(250);
+
+        // Create and apply configuration for roller motor. Voltage compensation helps
+        // the roller behave the same as the battery
+        // voltage dips. The current limit helps prevent breaker trips or burning out
+        // the motor in the event the roller stalls.
+        SparkMaxConfig config = new SparkMaxConfig();
+        config.voltageCompensation(RollerConstants.ROLLER_MOTOR_VOLTAGE_COMP);
+        config.smartCurrentLimit(RollerConstants.ROLLER_MOTOR_CURRENT_LIMIT);
+        config.idleMode(IdleMode.kCoast);
+        SparkMaxConfig config1 = new SparkMaxConfig();
+        config1.voltageCompensation(RollerConstants.ROLLER_MOTOR_VOLTAGE_COMP);
+        config1.smartCurrentLimit(RollerConstants.ROLLER_MOTOR_CURRENT_LIMIT);
+        config1.idleMode(IdleMode.kCoast);
+
+        SparkConfigurator configurator = SparkConfigurator.getInstance();
+        configurator.configure("Shooter Up", upShooterMotor, config);
+
+        configurator.configure("Shooter Down", downShooterMotor, config1);
+        // The second lower motor follows the first one inverted, same as the arm and roller pairs.
+        // In diagnostic mode it stays independent so both motors can be driven and logged separately.
+        if (!Constants.ShooterDiagnosticMode)
+            config1.follow(ShooterConstants.DOWN_MOTOR_ID, true);
+        // Until the follower is verified the second motor is driven directly
+        configurator.configure("Shooter Down R", downShooterMotorR, config1)
+            .thenAccept(ok -> downFollowerActive = ok && !Constants.ShooterDiagnosticMode && verifyDownFollower());
+    }
+
+    /**
+     * Reads back the follower configuration of the second lower motor. If the controller
+     * did not take the follower setting we fall back to driving it directly, so the pair
+     * keeps working, just with an extra CAN write per cycle.
+     */
+    private boolean verifyDownFollower() {
+        boolean following = downShooterMotorR.isFollower()
+            && downShooterMotorR.configAccessor.getFollowerModeLeaderId() == ShooterConstants.DOWN_MOTOR_ID
+            && downShooterMotorR.configAccessor.getFollowerModeInverted();
+        if (!following)
+            System.out.println("Shooter: motor " + ShooterConstants.DOWN_MOTOR_IDR + " is not following "
+                + ShooterConstants.DOWN_MOTOR_ID + ", driving it directly");
+        return following;
+    }
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        inputs.upPosition = upEncoder.getPosition();
+        inputs.upVelocity = upEncoder.getVelocity();
+        inputs.downVelocity = downEncoder.getVelocity();
+        inputs.downRVelocity = downEncoderR.getVelocity();
+        inputs.upApplied = upShooterMotor.getAppliedOutput();
+        inputs.downApplied = downShooterMotor.getAppliedOutput();
+        inputs.downRApplied = downShooterMotorR.getAppliedOutput();
+        inputs.upCurrent = upShooterMotor.getOutputCurrent();
+        inputs.downCurrent = downShooterMotor.getOutputCurrent();
+        inputs.downRCurrent = downShooterMotorR.getOutputCurrent();
+        inputs.downFollowerActive = downFollowerActive;
+        inputs.temperature = Math.max(upShooterMotor.getMotorTemperature(),
+            Math.max(downShooterMotor.getMotorTemperature(), downShooterMotorR.getMotorTemperature()));
+    }
+
+    @Override
+    public void setUp(double output) {
+        upShooterMotor.set(output);
+    }
+
+    // The second motor only needs its own write when it is not a follower. In diagnostic
+    // mode it gets its own output through setDownR().
+    @Override
+    public void setDown(double output) {
+        downShooterMotor.set(output);
+        if (!downFollowerActive && !Constants.ShooterDiagnosticMode)
+            downShooterMotorR.set(-output);
+    }
+
+    @Override
+    public void setDownR(double output) {
+        if (!downFollowerActive)
+            downShooterMotorR.set(-output);
+    }
+
+    @Override
+    public void resetPositions() {
+        upEncoder.setPosition(0);
+        downEncoder.setPosition(0);
+    }
+
+    @Override
+    public void setCurrentLimit(int amps) {
+        SparkConfigurator configurator = SparkConfigurator.getInstance();
+        configurator.setCurrentLimit(upShooterMotor, amps);
+        configurator.setCurrentLimit(downShooterMotor, amps);
+        configurator.setCurrentLimit(downShooterMotorR, amps);
+    }
+}
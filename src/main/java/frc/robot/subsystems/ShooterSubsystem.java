@@ -1,45 +1,49 @@
 package frc.robot.subsystems;
 
-import com.revrobotics.spark.SparkMax;
-import com.revrobotics.spark.SparkMaxAlternateEncoder;
-import com.revrobotics.spark.SparkRelativeEncoder;
 import com.revrobotics.RelativeEncoder;
-import com.revrobotics.spark.SparkBase.ControlType;
-import com.revrobotics.spark.SparkBase.PersistMode;
-import com.revrobotics.spark.SparkBase.ResetMode;
-import com.revrobotics.spark.SparkLimitSwitch;
-import com.revrobotics.spark.SparkLowLevel.MotorType;
-import com.revrobotics.spark.config.SparkMaxConfig;
-import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
-import com.revrobotics.spark.config.LimitSwitchConfig.Type;
 import com.revrobotics.spark.SparkClosedLoopController;
 //import com.revrobotics.spark.SparkPIDController;
 
 import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Constants.ArmConstants;
-import frc.robot.Constants.RollerConstants;
+import frc.robot.Constants.AllocationConstants;
 import frc.robot.Constants.ShooterConstants;
+import frc.robot.Constants.TelemetryConstants;
 import frc.robot.Constants;
+import frc.robot.AllocationMeter;
+import frc.robot.InputsLog;
 import frc.robot.PIDCtrl;
+import frc.robot.PowerManager;
+import frc.robot.Telemetry;
+import frc.robot.WarmUp;
 
-public class ShooterSubsystem extends SubsystemBase {
+public class ShooterSubsystem extends SubsystemBase implements PowerManager.Load {
 
-    private final SparkMax upShooterMotor;
-    private SparkMax upShooterMotorR;
-    private SparkMax downShooterMotor;
-    private SparkMax downShooterMotorR;
+    private final ShooterIO io;
+    private final ShooterIO.Inputs inputs = new ShooterIO.Inputs();
+    private final AllocationMeter.HotPath hotPath =
+        AllocationMeter.getInstance().hotPath("Shooter", AllocationConstants.SHOOTER_PERIODIC);
 
-    private final RelativeEncoder upEncoder;
-    private final RelativeEncoder downEncoder;
+    // Output cap from the power manager
+    private double outputScale = 1;
 
     private final PIDCtrl upPidCtrl;
     private final PIDCtrl downPidCtrl;
     private double upSetRPM = ShooterConstants.SpeedUp;
     private double downSetRPM = ShooterConstants.SpeedDown;
 
+    // In diagnostic mode the second lower motor runs its own loop to its own setpoint, so a
+    // follower fault can be told apart from a mechanical one
+    private final PIDCtrl downRPidCtrl;
+    private double downRSetRPM = ShooterConstants.SpeedDown;
+
     private double timeDelta = Constants.TimePeriod;
 
     RelativeEncoder m_alternateEncoder;
@@ -66,8 +70,21 @@ public class ShooterSubsystem extends SubsystemBase {
     private double time = 0;
     private double controlValueUp = 0;
     private double controlValueDown = 0;
+    private double controlValueDownR = 0;
     private boolean atSpeed = false;
 
+    // Log entries for the outputs, the inputs are logged by InputsLog
+    private final DoubleLogEntry logUpSetpoint;
+    private final DoubleLogEntry logDownSetpoint;
+    private final DoubleLogEntry logUpDif;
+    private final DoubleLogEntry logDownDif;
+    private final DoubleLogEntry logUpControl;
+    private final DoubleLogEntry logDownControl;
+    private final DoubleLogEntry logDownRSetpoint;
+    private final DoubleLogEntry logDownRControl;
+    private final DoubleLogEntry logDt;
+    private final BooleanLogEntry logAtSpeed;
+
 //    private static final SparkMaxAlternateEncoder.Type kAltEncType = SparkMaxAlternateEncoder.Type.kQuadrature;
     // private SparkMaxConfig motorConfig;
     // private SparkLimitSwitch forwardLimitSwitch;
@@ -77,42 +94,30 @@ public class ShooterSubsystem extends SubsystemBase {
     /**
      * This subsytem that controls the roller.
      */
-    public ShooterSubsystem () {
-        upShooterMotor = new SparkMax(ShooterConstants.UP_MOTOR_ID, MotorType.kBrushless);
-        downShooterMotor = new SparkMax(ShooterConstants.DOWN_MOTOR_ID, MotorType.kBrushless);
-        downShooterMotorR = new SparkMax(ShooterConstants.DOWN_MOTOR_IDR, MotorType.kBrushless);
-
-        upEncoder = upShooterMotor.getEncoder();
-        downEncoder = downShooterMotor.getEncoder();
-
-    // upShooterMotorR = new SparkMax(ShooterConstants.UP_MOTOR_IDR, MotorType.kBrushless);
-
-    // Set can timeout. Because this project only sets parameters once on
-    // construction, the timeout can be long without blocking robot operation. Code
-    // which sets or gets parameters during operation may need a shorter timeout.
-
-    upShooterMotor.setCANTimeout(250);
-    downShooterMotor.setCANTimeout(250);
-    downShooterMotorR.setCANTimeout(250);
-
-    // Create and apply configuration for roller motor. Voltage compensation helps
-    // the roller behave the same as the battery
-    // voltage dips. The current limit helps prevent breaker trips or burning out
-    // the motor in the event the roller stalls.
-    SparkMaxConfig config = new SparkMaxConfig();
-    config.voltageCompensation(RollerConstants.ROLLER_MOTOR_VOLTAGE_COMP);
-    config.smartCurrentLimit(RollerConstants.ROLLER_MOTOR_CURRENT_LIMIT);
-    config.idleMode(IdleMode.kCoast);
-    SparkMaxConfig config1 = new SparkMaxConfig();
-    config1.voltageCompensation(RollerConstants.ROLLER_MOTOR_VOLTAGE_COMP);
-    config1.smartCurrentLimit(RollerConstants.ROLLER_MOTOR_CURRENT_LIMIT);
-    config1.idleMode(IdleMode.kCoast);
-
-    upShooterMotor.configure(config, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-
-    downShooterMotor.configure(config1, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
-//    config1.follow(ShooterConstants.DOWN_MOTOR_ID, true);
-    downShooterMotorR.configure(config1, ResetMode.kResetSafeParameters, PersistMode.kPersistParameters);
+    public ShooterSubsystem (ShooterIO io) {
+        this(io, false);
+    }
+
+    /**
+     * @param io the shooter hardware, simulation or replay
+     * @param warmUp an instance for the JIT warm-up: not registered with the schedulers, logs
+     *        nowhere and publishes nothing
+     */
+    public ShooterSubsystem (ShooterIO io, boolean warmUp) {
+        this.io = io;
+        if (warmUp)
+            CommandScheduler.getInstance().unregisterSubsystem(this);
+        else
+            Telemetry.getInstance().group("Shooter")
+                .signal("upRPM", () -> inputs.upVelocity, 1, 5)
+                .signal("downRPM", () -> inputs.downVelocity, 1, 5)
+                .signal("upSetpoint", () -> upSetRPM)
+                .signal("downSetpoint", () -> downSetRPM)
+                .signal("thrust", () -> controlValueUp, 1, 0.005)
+                .signal("atSpeed", () -> atSpeed ? 1 : 0)
+                .signal("upCurrent", () -> inputs.upCurrent, TelemetryConstants.SLOW, 0.5)
+                .signal("downCurrent", () -> inputs.downCurrent, TelemetryConstants.SLOW, 0.5)
+                .start();
 
     m_pidController = new PIDController(kP, kI, kD);
     //m_pidController.setIZone(kIz);
@@ -125,10 +130,69 @@ public class ShooterSubsystem extends SubsystemBase {
 
         upPidCtrl = new PIDCtrl(kP, kD, kI, timeDelta);
         downPidCtrl = new PIDCtrl(kP, kD, kI, timeDelta);
+        downRPidCtrl = new PIDCtrl(kP, kD, kI, timeDelta);
+
+        DataLog log = warmUp ? WarmUp.discardLog() : DataLogManager.getLog();
+        logUpSetpoint = new DoubleLogEntry(log, "/Shooter/UpSetpoint");
+        logDownSetpoint = new DoubleLogEntry(log, "/Shooter/DownSetpoint");
+        logUpDif = new DoubleLogEntry(log, "/Shooter/UpDif");
+        logDownDif = new DoubleLogEntry(log, "/Shooter/DownDif");
+        logUpControl = new DoubleLogEntry(log, "/Shooter/UpControl");
+        logDownControl = new DoubleLogEntry(log, "/Shooter/DownControl");
+        logDownRSetpoint = new DoubleLogEntry(log, "/Shooter/DownRSetpoint");
+        logDownRControl = new DoubleLogEntry(log, "/Shooter/DownRControl");
+        logDt = new DoubleLogEntry(log, "/Shooter/Dt");
+        logAtSpeed = new BooleanLogEntry(log, "/Shooter/AtSpeed");
     }
 
+    // Inputs are read and logged every cycle, whether or not a command runs the shooter
     @Override
     public void periodic() {
+        io.updateInputs(inputs);
+        hotPath.begin();
+        InputsLog.getInstance().record("Shooter", inputs);
+        hotPath.end();
+    }
+
+    public boolean isDownFollowerActive() {
+        return inputs.downFollowerActive;
+    }
+
+    // Open-loop outputs are scaled by the power manager's cap. run() limits its loop to the cap
+    // instead, scaling after it would only make the loop wind up against it.
+    private void setUp(double value) {
+        io.setUp(value * outputScale);
+    }
+
+    private void setDown(double value) {
+        writeDown(value * outputScale, value * outputScale);
+    }
+
+    // The second lower motor only takes its own output in diagnostic mode
+    private void writeDown(double value, double valueR) {
+        io.setDown(value);
+        if (Constants.ShooterDiagnosticMode)
+            io.setDownR(valueR);
+    }
+
+    @Override
+    public double getOutputCurrent() {
+        return inputs.upCurrent + inputs.downCurrent + inputs.downRCurrent;
+    }
+
+    @Override
+    public double getMotorTemperature() {
+        return inputs.temperature;
+    }
+
+    @Override
+    public void setOutputScale(double scale) {
+        outputScale = scale;
+    }
+
+    @Override
+    public void setCurrentLimit(int amps) {
+        io.setCurrentLimit(amps);
     }
 
     public boolean atSetPoint() {
@@ -136,66 +200,67 @@ public class ShooterSubsystem extends SubsystemBase {
     }
 
     public void init(double upRPM, double downRPM) {
-        System.out.println("Shooter Initializing");
         getParams();
         upSetRPM = upRPM;
         downSetRPM = downRPM;
+        downRSetRPM = downRPM;
+        if (Constants.ShooterDiagnosticMode) {
+            downRSetRPM = SmartDashboard.getNumber("Set RPM Down R", downRPM);
+            if (downRSetRPM > -50)
+                downRSetRPM = -50;
+            logDownRSetpoint.append(downRSetRPM);
+        }
         execCounter = 0;
+        logUpSetpoint.append(upSetRPM);
+        logDownSetpoint.append(downSetRPM);
         
         time = 0;
         controlValueUp = 0;
         controlValueDown = 0;
+        controlValueDownR = 0;
         atSpeed = false;
 
-        upEncoder.setPosition(0);
-        downEncoder.setPosition(0);
+        io.resetPositions();
 
         upPidCtrl.reset();
         downPidCtrl.reset();
+        downRPidCtrl.reset();
         // m_pidController.reset();
         // m_pidController.setSetpoint(10);
     }
 
     public void stop() {
-        upShooterMotor.set(0);
+        setUp(0);
         //upShooterMotor.stopMotor();
-        downShooterMotor.set(0);
-        downShooterMotorR.set(0);
+        setDown(0);
     }
 
     public void runDown(double target) {
         // double velUp = upEncoder.getVelocity();
         // double velDown = downEncoder.getVelocity();
 //        upShooterMotor.set(target);
-        downShooterMotor.set(-target);
+        setDown(-target);
         // SmartDashboard.putNumber("Shooter RPM Up", velUp);
         // SmartDashboard.putNumber("Shooter RPM Down", velDown);
     }
 
     public void runRaw(double target) {
-        double velUp = upEncoder.getVelocity();
-        double velDown = downEncoder.getVelocity();
-        upShooterMotor.set(target);
-        downShooterMotor.set(-target);
-        SmartDashboard.putNumber("Shooter RPM Up", velUp);
-        SmartDashboard.putNumber("Shooter RPM Down", velDown);
+        setUp(target);
+        setDown(-target);
     }
    
     //TODO Param?
     public void run(double target) {
         ++execCounter;
-        int dtime = (int) (execCounter * 1000 * Constants.TimePeriod);
 
         double t = Timer.getFPGATimestamp();
         double dt = time > 0 ? t - time : 0;
         time = t;
 
 //        downSetRPM = upSetRPM;
-        double velUp = upEncoder.getVelocity();
-        double velDown = downEncoder.getVelocity();
+        double velUp = inputs.upVelocity;
+        double velDown = inputs.downVelocity;
 
-        double pos = upEncoder.getPosition();
-        double pos1 = downEncoder.getPosition();
         //double pos2 = downEncoderR.getPosition();
         // double rpm = SmartDashboard.getNumber("RPM", 500);
         // if (targetRPM != rpm)
@@ -207,12 +272,12 @@ public class ShooterSubsystem extends SubsystemBase {
         if (controlValueUp < controlOutputMin) {
             controlValueUp = controlOutputMin;
             controlValueDown = -controlOutputMin;
-            System.out.printf("VEL, %.2f, -, %.2f%n", velUp, velDown);
+            controlValueDownR = -controlOutputMin;
 
-            upShooterMotor.set(controlValueUp);
-            downShooterMotor.set(controlValueDown);
-            downShooterMotorR.set(-controlValueDown);
-            System.out.printf("Applied Output: %.3f, %.3f, %.4f %n", controlValueUp, controlValueDown, upShooterMotor.getAppliedOutput());
+            io.setUp(controlValueUp);
+            writeDown(controlValueDown, controlValueDownR);
+            logUpControl.append(controlValueUp);
+            logDownControl.append(controlValueDown);
             return;
         }
 
@@ -225,33 +290,34 @@ public class ShooterSubsystem extends SubsystemBase {
         controlValueUp += difUp / upSetRPM;
         controlValueDown += difDown / downSetRPM;
 
-        double ctrlvalUp = controlValueUp;
-        double ctrlvalDown = controlValueDown;
-    
-        controlValueUp = PIDCtrl.limitSignedRange(controlValueUp, controlOutputMin, controlOutputMax);
-        controlValueDown = PIDCtrl.limitSignedRange(controlValueDown, -controlOutputMax, -controlOutputMin);
-
-//        upShooterMotor.setVoltage(ctrlSpeed);
-        upShooterMotor.set(controlValueUp);
-//        downShooterMotor.set(-controlValueUp);
-        downShooterMotor.set(controlValueDown);
-        downShooterMotorR.set(-controlValueDown);
-
-        double cur1 = upShooterMotor.getOutputCurrent();
-        double cur2 = downShooterMotor.getOutputCurrent();
-        double cur3 = downShooterMotorR.getOutputCurrent();
-
-        SmartDashboard.putNumber("Shooter RPM Up", velUp);
-        SmartDashboard.putNumber("Shooter RPM Down", velDown);
-        SmartDashboard.putNumber("Thrust", controlValueUp);
 
-        SmartDashboard.putNumber("CurrentUp", cur1);
-        SmartDashboard.putNumber("CurrentDown", cur2);
+        // The power manager's cap limits the loop itself, so it does not integrate past it
+        double outputMax = controlOutputMax * outputScale;
+        controlValueUp = PIDCtrl.limitSignedRange(controlValueUp, controlOutputMin, outputMax);
+        controlValueDown = PIDCtrl.limitSignedRange(controlValueDown, -outputMax, -controlOutputMin);
 
-//        System.out.printf("CUR, %.3f, %.3f, %.3f%n", cur1, cur2, cur3);
+        // The second lower motor is mounted the other way round, its velocity is the wheel's negated
+        if (Constants.ShooterDiagnosticMode) {
+            double difDownR = kV * (-downRSetRPM) + downRPidCtrl.calculateDif(inputs.downRVelocity, -downRSetRPM, dt);
+            atSpeed &= Math.abs(difDownR / downRSetRPM - 1) < posDelta;
+            controlValueDownR += difDownR / downRSetRPM;
+            controlValueDownR = PIDCtrl.limitSignedRange(controlValueDownR, -outputMax, -controlOutputMin);
+            logDownRControl.append(controlValueDownR);
+        }
 
-        System.out.printf("SHT, %d, %.2f, -, %.2f, %.3f, -, %.4f, %.4f, %.4f, %.4f%n", dtime, 1000 * dt, pos, velUp, difUp, ctrlvalUp, controlValueUp, upShooterMotor.getAppliedOutput());
-        System.out.printf("SHT, %d, %.2f, -, %.2f, %.3f, -, %.4f, %.4f, %.4f, %.4f, %.4f%n", dtime, 1000 * dt, pos, velDown, difDown, ctrlvalDown, controlValueDown, downShooterMotor.getAppliedOutput(), downShooterMotorR.getAppliedOutput());
+//        upShooterMotor.setVoltage(ctrlSpeed);
+        io.setUp(controlValueUp);
+//        downShooterMotor.set(-controlValueUp);
+        writeDown(controlValueDown, controlValueDownR);
+
+        // Velocities, outputs and currents go to the log from periodic(), the second
+        // lower motor included
+        logDt.append(dt);
+        logUpDif.append(difUp);
+        logDownDif.append(difDown);
+        logUpControl.append(controlValueUp);
+        logDownControl.append(controlValueDown);
+        logAtSpeed.append(atSpeed);
     }
 
 /*
@@ -295,6 +361,8 @@ public class ShooterSubsystem extends SubsystemBase {
     public void putParams() {
         SmartDashboard.putNumber("Set RPM Up", upSetRPM);
         SmartDashboard.putNumber("Set RPM Down", downSetRPM);
+        if (Constants.ShooterDiagnosticMode)
+            SmartDashboard.putNumber("Set RPM Down R", downRSetRPM);
 
         SmartDashboard.putNumber("kP_Sh", kP);
         SmartDashboard.putNumber("kD_Sh", kD);
@@ -327,5 +395,6 @@ public class ShooterSubsystem extends SubsystemBase {
 
         upPidCtrl.pid(kP, kD, kI);
         downPidCtrl.pid(kP, kD, kI);
+        downRPidCtrl.pid(kP, kD, kI);
     }
 }
\ No newline at end of file